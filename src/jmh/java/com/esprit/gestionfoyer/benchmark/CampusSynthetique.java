@@ -0,0 +1,116 @@
+package com.esprit.gestionfoyer.benchmark;
+
+import com.esprit.gestionfoyer.dto.AjouterReservationDTO;
+import com.esprit.gestionfoyer.entites.*;
+import com.esprit.gestionfoyer.repositories.ChambreRepository;
+import com.esprit.gestionfoyer.repositories.EtudiantRepository;
+import com.esprit.gestionfoyer.repositories.FoyerRepository;
+import com.esprit.gestionfoyer.repositories.UniversiteRepository;
+import com.esprit.gestionfoyer.services.IReservationService;
+import org.springframework.context.ApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic campus for benchmarks: universites, each with one foyer of blocs and chambres,
+ * a population of students, and a share of chambres already reserved.
+ * The chambres and students left free form the pool the benchmarks reserve from.
+ */
+public class CampusSynthetique {
+
+    public static final String PREFIXE_UNIVERSITE = "Universite-";
+    private static final long PREMIER_CIN = 10_000_000L;
+    private static final TypeChambre[] TYPES = TypeChambre.values();
+
+    public record Affectation(long idChambre, long cin) {
+    }
+
+    private final List<Long> chambresLibres = new ArrayList<>();
+    private final List<Long> cinsLibres = new ArrayList<>();
+
+    public static CampusSynthetique generer(ApplicationContext context, int universites, int blocsParFoyer,
+                                            int chambresParBloc, int etudiants, double tauxOccupation) {
+        CampusSynthetique campus = new CampusSynthetique();
+        List<Long> idChambres = campus.genererTopologie(context, universites, blocsParFoyer, chambresParBloc);
+        List<Long> cins = campus.genererEtudiants(context, etudiants);
+
+        // The first chambres are pre-reserved by the last students, the rest is the benchmark pool
+        int occupees = Math.min((int) (idChambres.size() * tauxOccupation), cins.size());
+        List<AjouterReservationDTO> demandes = new ArrayList<>();
+        for (int i = 0; i < occupees; i++) {
+            AjouterReservationDTO demande = new AjouterReservationDTO();
+            demande.setIdChambre(idChambres.get(i));
+            demande.setCinEtudiant(cins.get(cins.size() - 1 - i));
+            demandes.add(demande);
+        }
+        context.getBean(IReservationService.class).ajouterReservations(demandes);
+        campus.chambresLibres.addAll(idChambres.subList(occupees, idChambres.size()));
+        campus.cinsLibres.addAll(cins.subList(0, cins.size() - occupees));
+        return campus;
+    }
+
+    public int taillePool() {
+        return Math.min(chambresLibres.size(), cinsLibres.size());
+    }
+
+    public Affectation affectation(int index) {
+        return new Affectation(chambresLibres.get(index), cinsLibres.get(index));
+    }
+
+    private List<Long> genererTopologie(ApplicationContext context, int universites, int blocsParFoyer, int chambresParBloc) {
+        UniversiteRepository universiteRepository = context.getBean(UniversiteRepository.class);
+        FoyerRepository foyerRepository = context.getBean(FoyerRepository.class);
+        ChambreRepository chambreRepository = context.getBean(ChambreRepository.class);
+        List<Long> idChambres = new ArrayList<>();
+        for (int u = 0; u < universites; u++) {
+            Foyer foyer = new Foyer();
+            foyer.setNomFoyer("Foyer-" + u);
+            foyer.setCapaciteFoyer((long) blocsParFoyer * chambresParBloc * 3);
+            foyer.setBlocs(new ArrayList<>());
+            for (int b = 0; b < blocsParFoyer; b++) {
+                Bloc bloc = new Bloc();
+                bloc.setNomBloc("B" + u + "-" + b);
+                bloc.setCapaciteBloc((long) chambresParBloc * 3);
+                bloc.setFoyer(foyer);
+                foyer.getBlocs().add(bloc);
+            }
+            foyer = foyerRepository.save(foyer);
+
+            Universite universite = new Universite();
+            universite.setNomUniversite(PREFIXE_UNIVERSITE + u);
+            universite.setAdresse("Adresse " + u);
+            universite.setFoyer(foyer);
+            universiteRepository.save(universite);
+
+            for (Bloc bloc : foyer.getBlocs()) {
+                List<Chambre> chambres = new ArrayList<>();
+                for (int c = 0; c < chambresParBloc; c++) {
+                    Chambre chambre = new Chambre();
+                    chambre.setNumeroChambre(c + 1);
+                    chambre.setTypeC(TYPES[c % TYPES.length]);
+                    chambre.setBloc(bloc);
+                    chambres.add(chambre);
+                }
+                chambreRepository.saveAll(chambres).forEach(chambre -> idChambres.add(chambre.getIdChambre()));
+            }
+        }
+        return idChambres;
+    }
+
+    private List<Long> genererEtudiants(ApplicationContext context, int etudiants) {
+        List<Etudiant> nouveaux = new ArrayList<>();
+        List<Long> cins = new ArrayList<>();
+        for (int i = 0; i < etudiants; i++) {
+            Etudiant etudiant = new Etudiant();
+            etudiant.setNomEt("Nom" + i);
+            etudiant.setPrenomEt("Prenom" + i);
+            etudiant.setCin(PREMIER_CIN + i);
+            etudiant.setEcole("Ecole-" + (i % 10));
+            nouveaux.add(etudiant);
+            cins.add(PREMIER_CIN + i);
+        }
+        context.getBean(EtudiantRepository.class).saveAll(nouveaux);
+        return cins;
+    }
+}
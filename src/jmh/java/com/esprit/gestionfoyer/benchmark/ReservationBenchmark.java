@@ -0,0 +1,115 @@
+package com.esprit.gestionfoyer.benchmark;
+
+import com.esprit.gestionfoyer.GestionFoyerApplication;
+import com.esprit.gestionfoyer.dto.ChambreVueDTO;
+import com.esprit.gestionfoyer.entites.Reservation;
+import com.esprit.gestionfoyer.entites.TypeChambre;
+import com.esprit.gestionfoyer.services.IChambreService;
+import com.esprit.gestionfoyer.services.IReservationService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service hot paths against an embedded H2 campus.
+ * Run with: mvn -Pbenchmark test-compile exec:exec [-Dbenchmark.args="-p chambresParBloc=200 ReservationBenchmark"]
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReservationBenchmark {
+
+    @Param("3")
+    public int universites;
+    @Param("10")
+    public int blocsParFoyer;
+    @Param("100")
+    public int chambresParBloc;
+    @Param("5000")
+    public int etudiants;
+    @Param("0.3")
+    public double tauxOccupation;
+
+    private ConfigurableApplicationContext context;
+    private IReservationService reservationService;
+    private IChambreService chambreService;
+    private CampusSynthetique campus;
+    private final AtomicInteger suivant = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void demarrer() {
+        context = new SpringApplicationBuilder(GestionFoyerApplication.class).profiles("benchmark").run();
+        reservationService = context.getBean(IReservationService.class);
+        chambreService = context.getBean(IChambreService.class);
+        campus = CampusSynthetique.generer(context, universites, blocsParFoyer, chambresParBloc, etudiants, tauxOccupation);
+        if (campus.taillePool() == 0) {
+            context.close();
+            throw new IllegalStateException("No free (chambre, etudiant) pair to reserve: lower tauxOccupation or add etudiants");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void arreter() {
+        context.close();
+    }
+
+    // Rotates over the free (chambre, etudiant) pairs; each pair is released before it comes back
+    CampusSynthetique.Affectation prochaineAffectation() {
+        return campus.affectation(Math.floorMod(suivant.getAndIncrement(), campus.taillePool()));
+    }
+
+    @State(Scope.Thread)
+    public static class ReservationAAjouter {
+        CampusSynthetique.Affectation affectation;
+
+        @Setup(Level.Invocation)
+        public void choisir(ReservationBenchmark benchmark) {
+            affectation = benchmark.prochaineAffectation();
+        }
+
+        @TearDown(Level.Invocation)
+        public void annuler(ReservationBenchmark benchmark) {
+            benchmark.reservationService.annulerReservation(affectation.cin());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ReservationAAnnuler {
+        long cin;
+
+        @Setup(Level.Invocation)
+        public void reserver(ReservationBenchmark benchmark) {
+            CampusSynthetique.Affectation affectation = benchmark.prochaineAffectation();
+            benchmark.reservationService.ajouterReservation(affectation.idChambre(), affectation.cin());
+            cin = affectation.cin();
+        }
+    }
+
+    @Benchmark
+    public Reservation ajouterReservation(ReservationAAjouter reservation) {
+        return reservationService.ajouterReservation(reservation.affectation.idChambre(), reservation.affectation.cin());
+    }
+
+    @Benchmark
+    public Reservation annulerReservation(ReservationAAnnuler reservation) {
+        return reservationService.annulerReservation(reservation.cin);
+    }
+
+    @Benchmark
+    public List<ChambreVueDTO> getChambresNonReserveParNomUniversiteEtTypeChambre() {
+        return chambreService.getChambresNonReserveParNomUniversiteEtTypeChambre(CampusSynthetique.PREFIXE_UNIVERSITE + 0, TypeChambre.DOUBLE);
+    }
+
+    @Benchmark
+    public Map<String, List<ChambreVueDTO>> getChambresNonReservePourToutesUniversites() {
+        return chambreService.getChambresNonReservePourToutesUniversites();
+    }
+}
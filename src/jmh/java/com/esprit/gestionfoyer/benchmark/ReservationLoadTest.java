@@ -0,0 +1,162 @@
+package com.esprit.gestionfoyer.benchmark;
+
+import com.esprit.gestionfoyer.GestionFoyerApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP load test of the ReservationController endpoints, run once on platform threads and once
+ * with the "virtual" Spring profile, printing throughput and latency percentiles for both modes.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.esprit.gestionfoyer.benchmark.ReservationLoadTest
+ *           -Dbenchmark.args="--requetes=5000 --concurrence=40 --tomcatThreads=20 --connexions=50"
+ * Both modes get the same connection pool. Each request holds at most one connection, so the pool bounds
+ * the requests served at once in either mode: the defaults keep the concurrency under it, so the run
+ * measures the Tomcat threads and not the wait for a connection. Latencies are those of the successful
+ * requests; failures are counted apart, per endpoint and cause.
+ * The virtual mode needs a Java 21 runtime; on older runtimes both runs use platform threads.
+ */
+public final class ReservationLoadTest {
+
+    private static final Map<String, String> DEFAUTS = Map.of(
+            "requetes", "2000",
+            "concurrence", "40",
+            "tomcatThreads", "20",
+            "connexions", "50",
+            "universites", "3",
+            "blocsParFoyer", "10",
+            "chambresParBloc", "100",
+            "etudiants", "5000");
+
+    private ReservationLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(DEFAUTS);
+        for (String arg : args) {
+            String[] cleValeur = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(cleValeur[0], cleValeur[1]);
+        }
+        if (Runtime.version().feature() < 21) {
+            System.out.println("WARNING: Java " + Runtime.version().feature() + " runtime, virtual threads are not available");
+        }
+        if (Integer.parseInt(options.get("concurrence")) > Integer.parseInt(options.get("connexions"))) {
+            System.out.println("WARNING: concurrence " + options.get("concurrence") + " above the pool of " + options.get("connexions")
+                    + " connections: the pool is the limit, requests queue on it and time out as errors");
+        }
+        List<String> rapports = new ArrayList<>();
+        List<String> echecs = new ArrayList<>();
+        for (String mode : List.of("platform", "virtual")) {
+            executer(mode, options, rapports, echecs);
+        }
+        System.out.printf("%n%d connections, %s Tomcat threads, concurrence %s%n", Integer.parseInt(options.get("connexions")),
+                options.get("tomcatThreads"), options.get("concurrence"));
+        System.out.printf("%-10s %-28s %8s %8s %10s %10s %10s%n", "mode", "endpoint", "succes", "erreurs", "req/s", "p50 (ms)", "p99 (ms)");
+        rapports.forEach(System.out::println);
+        if (!echecs.isEmpty()) {
+            System.out.printf("%n%-10s %-28s %-40s %8s%n", "mode", "endpoint", "cause", "nombre");
+            echecs.forEach(System.out::println);
+        }
+    }
+
+    // Successful requests per endpoint go to rapports, the failures per endpoint and cause to echecs
+    private static void executer(String mode, Map<String, String> options, List<String> rapports, List<String> echecs) throws Exception {
+        String[] profils = "virtual".equals(mode) ? new String[]{"benchmark", "virtual"} : new String[]{"benchmark"};
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(GestionFoyerApplication.class)
+                .profiles(profils)
+                // command-line arguments, so they win over application-benchmark.properties
+                .run("--spring.main.web-application-type=servlet", "--server.port=0",
+                        "--server.tomcat.threads.max=" + options.get("tomcatThreads"),
+                        "--spring.datasource.hikari.maximum-pool-size=" + options.get("connexions"))) {
+            CampusSynthetique campus = CampusSynthetique.generer(context,
+                    Integer.parseInt(options.get("universites")), Integer.parseInt(options.get("blocsParFoyer")),
+                    Integer.parseInt(options.get("chambresParBloc")), Integer.parseInt(options.get("etudiants")), 0.3);
+            if (campus.taillePool() == 0) {
+                throw new IllegalStateException("No free (chambre, etudiant) pair to reserve: add chambres or etudiants");
+            }
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/reservations";
+            int requetes = Integer.parseInt(options.get("requetes"));
+            int concurrence = Integer.parseInt(options.get("concurrence"));
+
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+            Map<String, Queue<Long>> latences = new ConcurrentHashMap<>();
+            Map<String, Map<String, AtomicInteger>> erreurs = new ConcurrentHashMap<>();
+            ExecutorService clients = Executors.newFixedThreadPool(concurrence);
+            long debut = System.nanoTime();
+            try {
+                List<Future<?>> taches = new ArrayList<>();
+                for (int i = 0; i < requetes; i++) {
+                    CampusSynthetique.Affectation affectation = campus.affectation(i % campus.taillePool());
+                    taches.add(clients.submit(() -> {
+                        appeler(client, "POST /reservations", HttpRequest.newBuilder(URI.create(base))
+                                        .POST(json("{\"idChambre\":" + affectation.idChambre() + ",\"cinEtudiant\":" + affectation.cin() + "}")),
+                                latences, erreurs);
+                        appeler(client, "PUT /reservations/annuler", HttpRequest.newBuilder(URI.create(base + "/annuler"))
+                                        .PUT(json("{\"cinEtudiant\":" + affectation.cin() + "}")),
+                                latences, erreurs);
+                        appeler(client, "GET /reservations/page", HttpRequest.newBuilder(URI.create(base + "/page?taille=50")).GET(),
+                                latences, erreurs);
+                        return null;
+                    }));
+                }
+                for (Future<?> tache : taches) {
+                    tache.get();
+                }
+            } finally {
+                clients.shutdownNow();
+            }
+            double secondes = (System.nanoTime() - debut) / 1e9;
+
+            Set<String> endpoints = new TreeSet<>(latences.keySet());
+            endpoints.addAll(erreurs.keySet());
+            for (String endpoint : endpoints) {
+                long[] triees = latences.getOrDefault(endpoint, new ConcurrentLinkedQueue<>()).stream().mapToLong(Long::longValue).sorted().toArray();
+                int echouees = erreurs.getOrDefault(endpoint, Map.of()).values().stream().mapToInt(AtomicInteger::get).sum();
+                rapports.add(String.format("%-10s %-28s %8d %8d %10.1f %10.2f %10.2f", mode, endpoint, triees.length,
+                        echouees, triees.length / secondes, percentile(triees, 0.50), percentile(triees, 0.99)));
+                erreurs.getOrDefault(endpoint, Map.of()).forEach((cause, nombre) ->
+                        echecs.add(String.format("%-10s %-28s %-40s %8d", mode, endpoint, cause, nombre.get())));
+            }
+        }
+    }
+
+    // Times a successful call; a failed one, HTTP error or transport failure, is only counted by cause
+    private static void appeler(HttpClient client, String endpoint, HttpRequest.Builder requete,
+                                Map<String, Queue<Long>> latences, Map<String, Map<String, AtomicInteger>> erreurs) throws InterruptedException {
+        long debut = System.nanoTime();
+        String cause;
+        try {
+            HttpResponse<Void> reponse = client.send(requete.header("Content-Type", "application/json").timeout(Duration.ofSeconds(60)).build(),
+                    HttpResponse.BodyHandlers.discarding());
+            if (reponse.statusCode() < 400) {
+                latences.computeIfAbsent(endpoint, cle -> new ConcurrentLinkedQueue<>()).add(System.nanoTime() - debut);
+                return;
+            }
+            cause = "HTTP " + reponse.statusCode();
+        } catch (IOException e) {
+            cause = e.getClass().getSimpleName();
+        }
+        erreurs.computeIfAbsent(endpoint, cle -> new ConcurrentHashMap<>())
+                .computeIfAbsent(cause, cle -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private static HttpRequest.BodyPublisher json(String corps) {
+        return HttpRequest.BodyPublishers.ofString(corps);
+    }
+
+    private static double percentile(long[] triees, double rang) {
+        if (triees.length == 0) {
+            return 0;
+        }
+        return triees[Math.min(triees.length - 1, (int) Math.ceil(rang * triees.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,74 @@
+package com.esprit.gestionfoyer.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Records the number of SQL statements per request and flags requests where the same statement
+ * runs many times, which is the signature of an N+1 access pattern.
+ */
+@Slf4j
+@Component
+public class SqlStatementMetricsFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${gestionfoyer.metrics.n-plus-un.seuil:10}")
+    private int seuilNPlusUn;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        sqlStatementCounter.demarrer();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            enregistrer(request, sqlStatementCounter.terminer());
+        }
+    }
+
+    private void enregistrer(HttpServletRequest request, Map<String, Integer> statements) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        int total = statements.values().stream().mapToInt(Integer::intValue).sum();
+        DistributionSummary.builder("gestionfoyer.http.sql.statements")
+                .description("SQL statements executed per HTTP request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(total);
+
+        statements.entrySet().stream()
+                .filter(statement -> statement.getValue() >= seuilNPlusUn)
+                .max(Map.Entry.comparingByValue())
+                .ifPresent(statement -> {
+                    Counter.builder("gestionfoyer.http.sql.n-plus-un")
+                            .description("Requests repeating the same SQL statement at least the configured threshold")
+                            .tag("method", request.getMethod())
+                            .tag("uri", uri)
+                            .register(meterRegistry)
+                            .increment();
+                    log.warn("Possible N+1 on {} {}: statement executed {} times: {}",
+                            request.getMethod(), uri, statement.getValue(), statement.getKey());
+                });
+    }
+}
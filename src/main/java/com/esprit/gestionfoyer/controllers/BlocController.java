@@ -1,6 +1,8 @@
 package com.esprit.gestionfoyer.controllers;
 
 import com.esprit.gestionfoyer.dto.AffectationChambresBlocDTO;
+import com.esprit.gestionfoyer.dto.BlocVueDTO;
+import com.esprit.gestionfoyer.dto.PageCurseurDTO;
 import com.esprit.gestionfoyer.entites.Bloc;
 import com.esprit.gestionfoyer.services.IBlocService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,27 +19,38 @@ public class BlocController {
     private IBlocService blocService;
 
     @GetMapping
-    public ResponseEntity<List<Bloc>> getAllBlocs() {
-        List<Bloc> blocs = blocService.retrieveAllBlocs();
+    public ResponseEntity<List<BlocVueDTO>> getAllBlocs() {
+        List<BlocVueDTO> blocs = blocService.retrieveAllBlocs();
         return new ResponseEntity<>(blocs, HttpStatus.OK);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<PageCurseurDTO<BlocVueDTO, Long>> getBlocsPage(@RequestParam(required = false) Long apres,
+                                                                  @RequestParam(required = false) Integer taille,
+                                                                  @RequestParam(required = false) Long idFoyer) {
+        PageCurseurDTO<BlocVueDTO, Long> page = blocService.retrieveBlocsPage(apres, taille, idFoyer);
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Bloc> getBlocById(@PathVariable long id) {
-        Bloc bloc = blocService.retrieveBloc(id);
+    public ResponseEntity<BlocVueDTO> getBlocById(@PathVariable long id) {
+        BlocVueDTO bloc = blocService.retrieveBlocVue(id);
         return new ResponseEntity<>(bloc, HttpStatus.OK);
     }
 
     @PostMapping
-    public ResponseEntity<Bloc> createBloc(@RequestBody Bloc bloc) {
+    public ResponseEntity<BlocVueDTO> createBloc(@RequestBody Bloc bloc) {
         Bloc savedBloc = blocService.addBloc(bloc);
-        return new ResponseEntity<>(savedBloc, HttpStatus.CREATED);
+        return new ResponseEntity<>(BlocVueDTO.of(savedBloc), HttpStatus.CREATED);
     }
 
     @PutMapping
-    public ResponseEntity<Bloc> updateBloc(@RequestBody Bloc bloc) {
+    public ResponseEntity<BlocVueDTO> updateBloc(@RequestBody Bloc bloc) {
+        if (bloc.getVersion() == null) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_REQUIRED);
+        }
         Bloc updatedBloc = blocService.updateBloc(bloc);
-        return new ResponseEntity<>(updatedBloc, HttpStatus.OK);
+        return new ResponseEntity<>(BlocVueDTO.of(updatedBloc), HttpStatus.OK);
     }
 
     @DeleteMapping("/{id}")
@@ -47,11 +60,11 @@ public class BlocController {
     }
 
     @PutMapping("/affecter-chambres")
-    public ResponseEntity<Bloc> affecterChambresABloc(@RequestBody AffectationChambresBlocDTO affectationDTO) {
+    public ResponseEntity<BlocVueDTO> affecterChambresABloc(@RequestBody AffectationChambresBlocDTO affectationDTO) {
         Bloc bloc = blocService.affecterChambresABloc(
                 affectationDTO.getNumChambre(),
                 affectationDTO.getIdBloc()
         );
-        return new ResponseEntity<>(bloc, HttpStatus.OK);
+        return new ResponseEntity<>(BlocVueDTO.of(bloc), HttpStatus.OK);
     }
 }
@@ -1,6 +1,8 @@
 package com.esprit.gestionfoyer.controllers;
 
 
+import com.esprit.gestionfoyer.dto.ChambreVueDTO;
+import com.esprit.gestionfoyer.dto.PageCurseurDTO;
 import com.esprit.gestionfoyer.entites.Chambre;
 import com.esprit.gestionfoyer.entites.TypeChambre;
 import com.esprit.gestionfoyer.services.IChambreService;
@@ -8,6 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -19,28 +22,48 @@ public class ChambreController {
     @Autowired
     private IChambreService chambreService;
 
+    @Autowired
+    private JsonStreamWriter jsonStreamWriter;
+
     @GetMapping
-    public ResponseEntity<List<Chambre>> getAllChambres() {
-        List<Chambre> chambres = chambreService.retrieveAllChambres();
+    public ResponseEntity<List<ChambreVueDTO>> getAllChambres() {
+        List<ChambreVueDTO> chambres = chambreService.retrieveAllChambres();
         return new ResponseEntity<>(chambres, HttpStatus.OK);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<PageCurseurDTO<ChambreVueDTO, Long>> getChambresPage(@RequestParam(required = false) Long apres,
+                                                                        @RequestParam(required = false) Integer taille,
+                                                                        @RequestParam(required = false) TypeChambre typeC,
+                                                                        @RequestParam(required = false) Long idBloc) {
+        PageCurseurDTO<ChambreVueDTO, Long> page = chambreService.retrieveChambresPage(apres, taille, typeC, idBloc);
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportChambres() {
+        return jsonStreamWriter.ecrire(chambreService::exporterChambres);
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Chambre> getChambreById(@PathVariable long id) {
-        Chambre chambre = chambreService.retrieveChambre(id);
+    public ResponseEntity<ChambreVueDTO> getChambreById(@PathVariable long id) {
+        ChambreVueDTO chambre = chambreService.retrieveChambreVue(id);
         return new ResponseEntity<>(chambre, HttpStatus.OK);
     }
 
     @PostMapping
-    public ResponseEntity<Chambre> createChambre(@RequestBody Chambre chambre) {
+    public ResponseEntity<ChambreVueDTO> createChambre(@RequestBody Chambre chambre) {
         Chambre savedChambre = chambreService.addChambre(chambre);
-        return new ResponseEntity<>(savedChambre, HttpStatus.CREATED);
+        return new ResponseEntity<>(ChambreVueDTO.of(savedChambre), HttpStatus.CREATED);
     }
 
     @PutMapping
-    public ResponseEntity<Chambre> updateChambre(@RequestBody Chambre chambre) {
+    public ResponseEntity<ChambreVueDTO> updateChambre(@RequestBody Chambre chambre) {
+        if (chambre.getVersion() == null) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_REQUIRED);
+        }
         Chambre updatedChambre = chambreService.updateChambre(chambre);
-        return new ResponseEntity<>(updatedChambre, HttpStatus.OK);
+        return new ResponseEntity<>(ChambreVueDTO.of(updatedChambre), HttpStatus.OK);
     }
 
     @DeleteMapping("/{id}")
@@ -50,27 +73,30 @@ public class ChambreController {
     }
 
     @GetMapping("/universite/{nomUniversite}")
-    public ResponseEntity<List<Chambre>> getChambresParNomUniversite(@PathVariable String nomUniversite) {
-        List<Chambre> chambres = chambreService.getChambresParNomUniversite(nomUniversite);
+    public ResponseEntity<List<ChambreVueDTO>> getChambresParNomUniversite(@PathVariable String nomUniversite) {
+        List<ChambreVueDTO> chambres = chambreService.getChambresParNomUniversite(nomUniversite);
         return new ResponseEntity<>(chambres, HttpStatus.OK);
     }
 
     @GetMapping("/bloc/{idBloc}/type/{typeC}")
-    public ResponseEntity<List<Chambre>> getChambresParBlocEtType(@PathVariable long idBloc, @PathVariable TypeChambre typeC) {
-        List<Chambre> chambres = chambreService.getChambresParBlocEtType(idBloc, typeC);
+    public ResponseEntity<List<ChambreVueDTO>> getChambresParBlocEtType(@PathVariable long idBloc, @PathVariable TypeChambre typeC) {
+        List<ChambreVueDTO> chambres = chambreService.getChambresParBlocEtType(idBloc, typeC);
         return new ResponseEntity<>(chambres, HttpStatus.OK);
     }
 
 
     @GetMapping("/non-reserve/universite/{nomUniversite}/type/{type}")
-    public ResponseEntity<List<Chambre>> getChambresNonReserveParNomUniversiteEtTypeChambre(@PathVariable String nomUniversite, @PathVariable TypeChambre type) {
-        List<Chambre> chambres = chambreService.getChambresNonReserveParNomUniversiteEtTypeChambre(nomUniversite, type);
+    public ResponseEntity<List<ChambreVueDTO>> getChambresNonReserveParNomUniversiteEtTypeChambre(@PathVariable String nomUniversite, @PathVariable TypeChambre type) {
+        List<ChambreVueDTO> chambres = chambreService.getChambresNonReserveParNomUniversiteEtTypeChambre(nomUniversite, type);
         return new ResponseEntity<>(chambres, HttpStatus.OK);
     }
 
     @GetMapping("/non-reserve/toutes-universites")
-    public ResponseEntity<Map<String, List<Chambre>>> getChambresNonReservePourToutesUniversites() {
-        Map<String, List<Chambre>> result = chambreService.getChambresNonReservePourToutesUniversites();
-        return new ResponseEntity<>(result, HttpStatus.OK);
+    public ResponseEntity<Map<String, List<ChambreVueDTO>>> getChambresNonReservePourToutesUniversites() {
+        Map<String, List<ChambreVueDTO>> result = chambreService.getChambresNonReservePourToutesUniversites();
+        // Precomputed snapshot: tell the client how old its last full rebuild is
+        return ResponseEntity.ok()
+                .header("X-Snapshot-Age", String.valueOf(chambreService.getAgeChambresNonReservePourToutesUniversites().toMillis()))
+                .body(result);
     }
 }
@@ -1,12 +1,18 @@
 package com.esprit.gestionfoyer.controllers;
 
+import com.esprit.gestionfoyer.dto.EtudiantVueDTO;
+import com.esprit.gestionfoyer.dto.ImportRapportDTO;
+import com.esprit.gestionfoyer.dto.PageCurseurDTO;
 import com.esprit.gestionfoyer.entites.Etudiant;
 import com.esprit.gestionfoyer.services.IEtudiantService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -16,35 +22,70 @@ public class EtudiantController {
         @Autowired
         private IEtudiantService etudiantService;
 
+        @Autowired
+        private JsonStreamWriter jsonStreamWriter;
+
+        @Autowired
+        private LecteurEtudiants lecteurEtudiants;
+
         @GetMapping
-        public ResponseEntity<List<Etudiant>> getAllEtudiants() {
-            List<Etudiant> etudiants = etudiantService.retrieveAllEtudiants();
+        public ResponseEntity<List<EtudiantVueDTO>> getAllEtudiants() {
+            List<EtudiantVueDTO> etudiants = etudiantService.retrieveAllEtudiants();
             return new ResponseEntity<>(etudiants, HttpStatus.OK);
         }
 
+        @GetMapping("/page")
+        public ResponseEntity<PageCurseurDTO<EtudiantVueDTO, Long>> getEtudiantsPage(@RequestParam(required = false) Long apres,
+                                                                              @RequestParam(required = false) Integer taille,
+                                                                              @RequestParam(required = false) String ecole) {
+            PageCurseurDTO<EtudiantVueDTO, Long> page = etudiantService.retrieveEtudiantsPage(apres, taille, ecole);
+            return new ResponseEntity<>(page, HttpStatus.OK);
+        }
+
+        @GetMapping("/export")
+        public ResponseEntity<StreamingResponseBody> exportEtudiants() {
+            return jsonStreamWriter.ecrire(etudiantService::exporterEtudiants);
+        }
+
         @PostMapping("/batch")
-        public ResponseEntity<List<Etudiant>> createEtudiants(@RequestBody List<Etudiant> etudiants) {
-            List<Etudiant> savedEtudiants = etudiantService.addEtudiants(etudiants);
+        public ResponseEntity<List<EtudiantVueDTO>> createEtudiants(@RequestBody List<Etudiant> etudiants) {
+            List<EtudiantVueDTO> savedEtudiants = etudiantService.addEtudiants(etudiants).stream().map(EtudiantVueDTO::of).toList();
             return new ResponseEntity<>(savedEtudiants, HttpStatus.CREATED);
         }
 
+        // Large imports: the body is read and inserted chunk by chunk
+        @PostMapping(value = "/import", consumes = "text/csv")
+        public ResponseEntity<ImportRapportDTO> importerEtudiantsCsv(InputStream corps) throws IOException {
+            ImportRapportDTO rapport = etudiantService.importerEtudiants(lecteurEtudiants.lireCsv(corps));
+            return new ResponseEntity<>(rapport, HttpStatus.OK);
+        }
+
+        @PostMapping(value = "/import", consumes = "application/json")
+        public ResponseEntity<ImportRapportDTO> importerEtudiantsJson(InputStream corps) throws IOException {
+            ImportRapportDTO rapport = etudiantService.importerEtudiants(lecteurEtudiants.lireJson(corps));
+            return new ResponseEntity<>(rapport, HttpStatus.OK);
+        }
+
         @PostMapping
-        public ResponseEntity<Etudiant> createEtudiant(@RequestBody Etudiant etudiant) {
+        public ResponseEntity<EtudiantVueDTO> createEtudiant(@RequestBody Etudiant etudiant) {
             // For single student creation
             Etudiant savedEtudiant = etudiantService.addEtudiants(List.of(etudiant)).get(0);
-            return new ResponseEntity<>(savedEtudiant, HttpStatus.CREATED);
+            return new ResponseEntity<>(EtudiantVueDTO.of(savedEtudiant), HttpStatus.CREATED);
         }
 
         @GetMapping("/{id}")
-        public ResponseEntity<Etudiant> getEtudiantById(@PathVariable long id) {
-            Etudiant etudiant = etudiantService.retrieveEtudiant(id);
+        public ResponseEntity<EtudiantVueDTO> getEtudiantById(@PathVariable long id) {
+            EtudiantVueDTO etudiant = etudiantService.retrieveEtudiantVue(id);
             return new ResponseEntity<>(etudiant, HttpStatus.OK);
         }
 
         @PutMapping
-        public ResponseEntity<Etudiant> updateEtudiant(@RequestBody Etudiant etudiant) {
+        public ResponseEntity<EtudiantVueDTO> updateEtudiant(@RequestBody Etudiant etudiant) {
+            if (etudiant.getVersion() == null) {
+                return new ResponseEntity<>(HttpStatus.PRECONDITION_REQUIRED);
+            }
             Etudiant updatedEtudiant = etudiantService.updateEtudiant(etudiant);
-            return new ResponseEntity<>(updatedEtudiant, HttpStatus.OK);
+            return new ResponseEntity<>(EtudiantVueDTO.of(updatedEtudiant), HttpStatus.OK);
         }
 
         @DeleteMapping("/{id}")
@@ -2,6 +2,10 @@ package com.esprit.gestionfoyer.controllers;
 
 
 import com.esprit.gestionfoyer.dto.AjouterFoyerEtAffecterAUniversiteDTO;
+import com.esprit.gestionfoyer.dto.FoyerVueDTO;
+import com.esprit.gestionfoyer.dto.PageCurseurDTO;
+import com.esprit.gestionfoyer.dto.ProvisionnementFoyerDTO;
+import com.esprit.gestionfoyer.dto.ProvisionnementRapportDTO;
 import com.esprit.gestionfoyer.entites.Foyer;
 import com.esprit.gestionfoyer.services.IFoyerService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,27 +21,37 @@ public class FoyerController {
     @Autowired
     private IFoyerService foyerService;
     @GetMapping
-    public ResponseEntity<List<Foyer>> getAllFoyers() {
-        List<Foyer> foyers = foyerService.retrieveAllFoyers();
+    public ResponseEntity<List<FoyerVueDTO>> getAllFoyers() {
+        List<FoyerVueDTO> foyers = foyerService.retrieveAllFoyers();
         return new ResponseEntity<>(foyers, HttpStatus.OK);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<PageCurseurDTO<FoyerVueDTO, Long>> getFoyersPage(@RequestParam(required = false) Long apres,
+                                                                    @RequestParam(required = false) Integer taille) {
+        PageCurseurDTO<FoyerVueDTO, Long> page = foyerService.retrieveFoyersPage(apres, taille);
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Foyer> getFoyerById(@PathVariable long id) {
-        Foyer foyer = foyerService.retrieveFoyer(id);
+    public ResponseEntity<FoyerVueDTO> getFoyerById(@PathVariable long id) {
+        FoyerVueDTO foyer = foyerService.retrieveFoyerVue(id);
         return new ResponseEntity<>(foyer, HttpStatus.OK);
     }
 
     @PostMapping
-    public ResponseEntity<Foyer> createFoyer(@RequestBody Foyer foyer) {
+    public ResponseEntity<FoyerVueDTO> createFoyer(@RequestBody Foyer foyer) {
         Foyer savedFoyer = foyerService.addFoyer(foyer);
-        return new ResponseEntity<>(savedFoyer, HttpStatus.CREATED);
+        return new ResponseEntity<>(FoyerVueDTO.of(savedFoyer), HttpStatus.CREATED);
     }
 
     @PutMapping
-    public ResponseEntity<Foyer> updateFoyer(@RequestBody Foyer foyer) {
+    public ResponseEntity<FoyerVueDTO> updateFoyer(@RequestBody Foyer foyer) {
+        if (foyer.getVersion() == null) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_REQUIRED);
+        }
         Foyer updatedFoyer = foyerService.updateFoyer(foyer);
-        return new ResponseEntity<>(updatedFoyer, HttpStatus.OK);
+        return new ResponseEntity<>(FoyerVueDTO.of(updatedFoyer), HttpStatus.OK);
     }
 
     @DeleteMapping("/{id}")
@@ -48,11 +62,17 @@ public class FoyerController {
 
 
     @PostMapping("/ajouter-foyer-etAffecter-aUniversite")
-    public ResponseEntity<Foyer> ajouterFoyerEtAffecterAUniversite(@RequestBody AjouterFoyerEtAffecterAUniversiteDTO request) {
+    public ResponseEntity<FoyerVueDTO> ajouterFoyerEtAffecterAUniversite(@RequestBody AjouterFoyerEtAffecterAUniversiteDTO request) {
         Foyer foyer = foyerService.ajouterFoyerEtAffecterAUniversite(
                 request.getFoyer(),
                 request.getIdUniversite()
         );
-        return new ResponseEntity<>(foyer, HttpStatus.CREATED);
+        return new ResponseEntity<>(FoyerVueDTO.of(foyer), HttpStatus.CREATED);
+    }
+
+    @PostMapping("/provisionner")
+    public ResponseEntity<ProvisionnementRapportDTO> provisionnerFoyer(@RequestBody ProvisionnementFoyerDTO request) {
+        ProvisionnementRapportDTO rapport = foyerService.provisionnerFoyer(request);
+        return new ResponseEntity<>(rapport, HttpStatus.CREATED);
     }
 }
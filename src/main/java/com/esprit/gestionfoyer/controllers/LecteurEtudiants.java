@@ -0,0 +1,96 @@
+package com.esprit.gestionfoyer.controllers;
+
+import com.esprit.gestionfoyer.entites.Etudiant;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reads students one by one from a request body, so an import never holds the whole file in memory.
+ * A line or element that cannot be read is returned as null and reported as invalid by the import.
+ * JSON that is not well-formed cannot be resynchronized: the import stops there, on an UncheckedIOException.
+ */
+@Component
+public class LecteurEtudiants {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // JSON array of students, in the same format as POST /etudiants/batch: the elements are bound one at a time,
+    // and the parser skips to the next element after one that does not bind
+    public Iterator<Etudiant> lireJson(InputStream corps) throws IOException {
+        MappingIterator<Etudiant> valeurs = objectMapper.readerFor(Etudiant.class).readValues(corps);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return valeurs.hasNextValue();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public Etudiant next() {
+                try {
+                    return valeurs.nextValue();
+                } catch (JsonMappingException e) {
+                    return null;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    // CSV with a header line naming the columns among nomEt, prenomEt, cin, ecole, dateNaissance (yyyy-MM-dd)
+    public Iterator<Etudiant> lireCsv(InputStream corps) throws IOException {
+        BufferedReader lecteur = new BufferedReader(new InputStreamReader(corps, StandardCharsets.UTF_8));
+        String entete = lecteur.readLine();
+        if (entete == null) {
+            return List.<Etudiant>of().iterator();
+        }
+        List<String> colonnes = Arrays.stream(entete.split(",")).map(String::trim).toList();
+        return lecteur.lines()
+                .filter(ligne -> !ligne.isBlank())
+                .map(ligne -> lireLigne(colonnes, ligne))
+                .iterator();
+    }
+
+    private Etudiant lireLigne(List<String> colonnes, String ligne) {
+        String[] valeurs = ligne.split(",", -1);
+        Etudiant etudiant = new Etudiant();
+        try {
+            for (int i = 0; i < colonnes.size() && i < valeurs.length; i++) {
+                String valeur = valeurs[i].trim();
+                if (valeur.isEmpty()) {
+                    continue;
+                }
+                switch (colonnes.get(i)) {
+                    case "nomEt" -> etudiant.setNomEt(valeur);
+                    case "prenomEt" -> etudiant.setPrenomEt(valeur);
+                    case "cin" -> etudiant.setCin(Long.parseLong(valeur));
+                    case "ecole" -> etudiant.setEcole(valeur);
+                    case "dateNaissance" -> etudiant.setDateNaissance(LocalDate.parse(valeur));
+                    default -> { }
+                }
+            }
+        } catch (RuntimeException e) {
+            return null;
+        }
+        return etudiant;
+    }
+}
@@ -0,0 +1,37 @@
+package com.esprit.gestionfoyer.controllers;
+
+import com.esprit.gestionfoyer.dto.AttenteReservationVueDTO;
+import com.esprit.gestionfoyer.dto.InscriptionAttenteDTO;
+import com.esprit.gestionfoyer.entites.AttenteReservation;
+import com.esprit.gestionfoyer.services.IListeAttenteService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/liste-attente")
+public class ListeAttenteController {
+    @Autowired
+    private IListeAttenteService listeAttenteService;
+
+    @PostMapping
+    public ResponseEntity<AttenteReservationVueDTO> inscrire(@RequestBody InscriptionAttenteDTO request) {
+        AttenteReservation attente = listeAttenteService.inscrire(request.getCinEtudiant(), request.getNomUniversite(), request.getTypeC());
+        return new ResponseEntity<>(AttenteReservationVueDTO.of(attente), HttpStatus.CREATED);
+    }
+
+    @GetMapping("/etudiant/{cin}")
+    public ResponseEntity<List<AttenteReservationVueDTO>> getAttentesParCin(@PathVariable long cin) {
+        List<AttenteReservationVueDTO> attentes = listeAttenteService.retrieveAttenteVuesParCin(cin);
+        return new ResponseEntity<>(attentes, HttpStatus.OK);
+    }
+
+    // 1 for the head of the list, 0 once promoted
+    @GetMapping("/{id}/position")
+    public ResponseEntity<Long> getPosition(@PathVariable long id) {
+        return new ResponseEntity<>(listeAttenteService.getPosition(id), HttpStatus.OK);
+    }
+}
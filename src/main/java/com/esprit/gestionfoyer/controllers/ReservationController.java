@@ -1,7 +1,13 @@
 package com.esprit.gestionfoyer.controllers;
 
 import com.esprit.gestionfoyer.dto.AjouterReservationDTO;
+import com.esprit.gestionfoyer.dto.AllocationChambreDTO;
 import com.esprit.gestionfoyer.dto.AnnulerReservationDTO;
+import com.esprit.gestionfoyer.dto.ChangementsReservationDTO;
+import com.esprit.gestionfoyer.dto.ReservationResultatDTO;
+import com.esprit.gestionfoyer.dto.ReservationVueDTO;
+import com.esprit.gestionfoyer.dto.PageCurseurDTO;
+import com.esprit.gestionfoyer.dto.StatistiqueOccupationDTO;
 import com.esprit.gestionfoyer.entites.Reservation;
 import com.esprit.gestionfoyer.services.IReservationService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +15,7 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -18,45 +25,97 @@ import java.util.List;
 public class ReservationController {
     @Autowired
     private IReservationService reservationService;
+    @Autowired
+    private JsonStreamWriter jsonStreamWriter;
 
     @GetMapping
-    public ResponseEntity<List<Reservation>> getAllReservations() {
-        List<Reservation> reservations = reservationService.retrieveAllReservation();
+    public ResponseEntity<List<ReservationVueDTO>> getAllReservations() {
+        List<ReservationVueDTO> reservations = reservationService.retrieveAllReservation();
         return new ResponseEntity<>(reservations, HttpStatus.OK);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<PageCurseurDTO<ReservationVueDTO, String>> getReservationsPage(@RequestParam(required = false) String apres,
+                                                                                  @RequestParam(required = false) Integer taille,
+                                                                                  @RequestParam(required = false) Boolean estValide,
+                                                                                  @RequestParam(required = false) Long idChambre) {
+        PageCurseurDTO<ReservationVueDTO, String> page = reservationService.retrieveReservationsPage(apres, taille, estValide, idChambre);
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportReservations() {
+        return jsonStreamWriter.ecrire(reservationService::exporterReservations);
+    }
+
+    // Change feed: the reservation changes after the "since" sequence, in commit-safe order
+    @GetMapping("/changes")
+    public ResponseEntity<ChangementsReservationDTO> getChangements(@RequestParam(required = false) Long since,
+                                                                   @RequestParam(required = false) Integer taille) {
+        ChangementsReservationDTO changements = reservationService.retrieveChangements(since, taille);
+        return new ResponseEntity<>(changements, HttpStatus.OK);
+    }
+
+    // Occupancy per university, foyer, bloc and chambre type for each academic year of the range
+    @GetMapping("/statistiques")
+    public ResponseEntity<List<StatistiqueOccupationDTO>> getStatistiquesOccupation(@RequestParam int anneeDebut,
+                                                                                   @RequestParam int anneeFin,
+                                                                                   @RequestParam(required = false) String nomUniversite) {
+        List<StatistiqueOccupationDTO> statistiques = reservationService.getStatistiquesOccupation(anneeDebut, anneeFin, nomUniversite);
+        return new ResponseEntity<>(statistiques, HttpStatus.OK);
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Reservation> getReservationById(@PathVariable String id) {
-        Reservation reservation = reservationService.retrieveReservation(id);
+    public ResponseEntity<ReservationVueDTO> getReservationById(@PathVariable String id) {
+        ReservationVueDTO reservation = reservationService.retrieveReservationVue(id);
         return new ResponseEntity<>(reservation, HttpStatus.OK);
     }
 
     @PutMapping
-    public ResponseEntity<Reservation> updateReservation(@RequestBody Reservation reservation) {
+    public ResponseEntity<ReservationVueDTO> updateReservation(@RequestBody Reservation reservation) {
+        if (reservation.getVersion() == null) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_REQUIRED);
+        }
         Reservation updatedReservation = reservationService.updateReservation(reservation);
-        return new ResponseEntity<>(updatedReservation, HttpStatus.OK);
+        return new ResponseEntity<>(ReservationVueDTO.of(updatedReservation), HttpStatus.OK);
     }
 
     @PostMapping
-    public ResponseEntity<Reservation> ajouterReservation(@RequestBody AjouterReservationDTO request) {
+    public ResponseEntity<ReservationVueDTO> ajouterReservation(@RequestBody AjouterReservationDTO request) {
         Reservation reservation = reservationService.ajouterReservation(
                 request.getIdChambre(),
                 request.getCinEtudiant()
         );
-        return new ResponseEntity<>(reservation, HttpStatus.CREATED);
+        return new ResponseEntity<>(ReservationVueDTO.of(reservation), HttpStatus.CREATED);
+    }
+
+    @PostMapping("/allouer")
+    public ResponseEntity<ReservationVueDTO> allouerChambre(@RequestBody AllocationChambreDTO request) {
+        Reservation reservation = reservationService.allouerChambre(
+                request.getCinEtudiant(),
+                request.getNomUniversite(),
+                request.getTypeC()
+        );
+        return new ResponseEntity<>(ReservationVueDTO.of(reservation), HttpStatus.CREATED);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<ReservationResultatDTO>> ajouterReservations(@RequestBody List<AjouterReservationDTO> requests) {
+        List<ReservationResultatDTO> resultats = reservationService.ajouterReservations(requests);
+        return new ResponseEntity<>(resultats, HttpStatus.OK);
     }
 
     @PutMapping("/annuler")
-    public ResponseEntity<Reservation> annulerReservation(@RequestBody AnnulerReservationDTO request) {
+    public ResponseEntity<ReservationVueDTO> annulerReservation(@RequestBody AnnulerReservationDTO request) {
         Reservation reservation = reservationService.annulerReservation(request.getCinEtudiant());
-        return new ResponseEntity<>(reservation, HttpStatus.OK);
+        return new ResponseEntity<>(ReservationVueDTO.of(reservation), HttpStatus.OK);
     }
 
 
     @GetMapping("/universite/{nomUniversite}/annee/{anneeUniversite}")
-    public ResponseEntity<List<Reservation>> getReservationParAnneeUniversitaireEtNomUniversite(@PathVariable String nomUniversite, @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate anneeUniversite) {
+    public ResponseEntity<List<ReservationVueDTO>> getReservationParAnneeUniversitaireEtNomUniversite(@PathVariable String nomUniversite, @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate anneeUniversite) {
 
-        List<Reservation> reservations = reservationService.getReservationParAnneeUniversitaireEtNomUniversite(anneeUniversite, nomUniversite);
+        List<ReservationVueDTO> reservations = reservationService.getReservationParAnneeUniversitaireEtNomUniversite(anneeUniversite, nomUniversite);
         return new ResponseEntity<>(reservations, HttpStatus.OK);
     }
 
@@ -2,6 +2,8 @@ package com.esprit.gestionfoyer.controllers;
 
 
 import com.esprit.gestionfoyer.dto.UniversiteDTO;
+import com.esprit.gestionfoyer.dto.PageCurseurDTO;
+import com.esprit.gestionfoyer.dto.UniversiteVueDTO;
 import com.esprit.gestionfoyer.entites.Universite;
 import com.esprit.gestionfoyer.services.IUniversiteService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,35 +21,42 @@ public class UniversiteController {
     private IUniversiteService universiteService;
 
     @GetMapping
-    public ResponseEntity<List<Universite>> getAllUniversities() {
-        List<Universite> universites = universiteService.retrieveAllUniversities();
+    public ResponseEntity<List<UniversiteVueDTO>> getAllUniversities() {
+        List<UniversiteVueDTO> universites = universiteService.retrieveAllUniversities();
         return new ResponseEntity<>(universites, HttpStatus.OK);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<PageCurseurDTO<UniversiteVueDTO, Long>> getUniversitesPage(@RequestParam(required = false) Long apres,
+                                                                              @RequestParam(required = false) Integer taille) {
+        PageCurseurDTO<UniversiteVueDTO, Long> page = universiteService.retrieveUniversitesPage(apres, taille);
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Universite> getUniversiteById(@PathVariable long id) {
-        Universite universite = universiteService.retrieveUniversite(id);
+    public ResponseEntity<UniversiteVueDTO> getUniversiteById(@PathVariable long id) {
+        UniversiteVueDTO universite = universiteService.retrieveUniversiteVue(id);
         return new ResponseEntity<>(universite, HttpStatus.OK);
     }
 
     @PostMapping
-    public ResponseEntity<Universite> createUniversite(@RequestBody Universite universite) {
+    public ResponseEntity<UniversiteVueDTO> createUniversite(@RequestBody Universite universite) {
         Universite savedUniversite = universiteService.addUniversite(universite);
-        return new ResponseEntity<>(savedUniversite, HttpStatus.CREATED);
+        return new ResponseEntity<>(UniversiteVueDTO.of(savedUniversite), HttpStatus.CREATED);
     }
 
     @PutMapping("/affecter-foyer")
-    public ResponseEntity<Universite> affecterFoyerAUniversite(@RequestBody UniversiteDTO affectationDTO) {
+    public ResponseEntity<UniversiteVueDTO> affecterFoyerAUniversite(@RequestBody UniversiteDTO affectationDTO) {
         Universite universite = universiteService.affecterFoyerAUniversite(
                 affectationDTO.getIdFoyer(),
                 affectationDTO.getNomUniversite()
         );
-        return new ResponseEntity<>(universite, HttpStatus.OK);
+        return new ResponseEntity<>(UniversiteVueDTO.of(universite), HttpStatus.OK);
     }
 
     @PutMapping("/desaffecter-foyer/{idUniversite}")
-    public ResponseEntity<Universite> desaffecterFoyerAUniversite(@PathVariable long idUniversite) {
+    public ResponseEntity<UniversiteVueDTO> desaffecterFoyerAUniversite(@PathVariable long idUniversite) {
         Universite universite = universiteService.desaffecterFoyerAUniversite(idUniversite);
-        return new ResponseEntity<>(universite, HttpStatus.OK);
+        return new ResponseEntity<>(UniversiteVueDTO.of(universite), HttpStatus.OK);
     }
 }
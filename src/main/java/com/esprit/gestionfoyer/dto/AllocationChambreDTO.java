@@ -0,0 +1,13 @@
+package com.esprit.gestionfoyer.dto;
+
+import com.esprit.gestionfoyer.entites.TypeChambre;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class AllocationChambreDTO {
+    private long cinEtudiant;
+    private String nomUniversite;
+    private TypeChambre typeC;
+}
@@ -0,0 +1,33 @@
+package com.esprit.gestionfoyer.dto;
+
+import com.esprit.gestionfoyer.entites.AttenteReservation;
+import com.esprit.gestionfoyer.entites.TypeChambre;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttenteReservationVueDTO {
+    private Long idAttente;
+    private Long cinEtudiant;
+    private Long idUniversite;
+    private TypeChambre typeC;
+    private LocalDateTime dateDemande;
+    // Set once promoted
+    private String idReservation;
+    private LocalDateTime datePromotion;
+    // Set when the entry left the list without a place
+    private LocalDateTime dateCloture;
+
+    public static AttenteReservationVueDTO of(AttenteReservation attente) {
+        return new AttenteReservationVueDTO(attente.getIdAttente(), attente.getCinEtudiant(), attente.getIdUniversite(),
+                attente.getTypeC(), attente.getDateDemande(), attente.getIdReservation(), attente.getDatePromotion(),
+                attente.getDateCloture());
+    }
+}
@@ -0,0 +1,26 @@
+package com.esprit.gestionfoyer.dto;
+
+import com.esprit.gestionfoyer.entites.Bloc;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BlocVueDTO {
+    private Long idBloc;
+    private String nomBloc;
+    private Long capaciteBloc;
+    private Long version;
+    private Long idFoyer;
+    private String nomFoyer;
+
+    public static BlocVueDTO of(Bloc bloc) {
+        return new BlocVueDTO(bloc.getIdBloc(), bloc.getNomBloc(), bloc.getCapaciteBloc(), bloc.getVersion(),
+                bloc.getFoyer() == null ? null : bloc.getFoyer().getIdFoyer(),
+                bloc.getFoyer() == null ? null : bloc.getFoyer().getNomFoyer());
+    }
+}
@@ -0,0 +1,27 @@
+package com.esprit.gestionfoyer.dto;
+
+import com.esprit.gestionfoyer.entites.Chambre;
+import com.esprit.gestionfoyer.entites.TypeChambre;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChambreVueDTO {
+    private Long idChambre;
+    private long numeroChambre;
+    private TypeChambre typeC;
+    private Long idBloc;
+    private String nomBloc;
+    private Long version;
+
+    public static ChambreVueDTO of(Chambre chambre) {
+        return new ChambreVueDTO(chambre.getIdChambre(), chambre.getNumeroChambre(), chambre.getTypeC(),
+                chambre.getBloc() == null ? null : chambre.getBloc().getIdBloc(),
+                chambre.getBloc() == null ? null : chambre.getBloc().getNomBloc(), chambre.getVersion());
+    }
+}
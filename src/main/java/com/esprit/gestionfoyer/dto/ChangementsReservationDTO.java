@@ -0,0 +1,21 @@
+package com.esprit.gestionfoyer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+// One page of the reservation change feed
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangementsReservationDTO {
+    private List<ReservationChangementDTO> changements;
+    // Sequence of the last change read, to pass as "since" on the next call; never null, unlike a page cursor
+    private long curseur;
+    // More changes are already available after the cursor
+    private boolean suite;
+}
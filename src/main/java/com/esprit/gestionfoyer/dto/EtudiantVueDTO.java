@@ -0,0 +1,28 @@
+package com.esprit.gestionfoyer.dto;
+
+import com.esprit.gestionfoyer.entites.Etudiant;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class EtudiantVueDTO {
+    private Long idEtudiant;
+    private String nomEt;
+    private String prenomEt;
+    private Long cin;
+    private String ecole;
+    private LocalDate dateNaissance;
+    private Long version;
+
+    public static EtudiantVueDTO of(Etudiant etudiant) {
+        return new EtudiantVueDTO(etudiant.getIdEtudiant(), etudiant.getNomEt(), etudiant.getPrenomEt(), etudiant.getCin(),
+                etudiant.getEcole(), etudiant.getDateNaissance(), etudiant.getVersion());
+    }
+}
@@ -0,0 +1,26 @@
+package com.esprit.gestionfoyer.dto;
+
+import com.esprit.gestionfoyer.entites.Foyer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FoyerVueDTO {
+    private Long idFoyer;
+    private String nomFoyer;
+    private Long capaciteFoyer;
+    private Long version;
+    private Long idUniversite;
+    private String nomUniversite;
+
+    public static FoyerVueDTO of(Foyer foyer) {
+        return new FoyerVueDTO(foyer.getIdFoyer(), foyer.getNomFoyer(), foyer.getCapaciteFoyer(), foyer.getVersion(),
+                foyer.getUniversite() == null ? null : foyer.getUniversite().getIdUniversite(),
+                foyer.getUniversite() == null ? null : foyer.getUniversite().getNomUniversite());
+    }
+}
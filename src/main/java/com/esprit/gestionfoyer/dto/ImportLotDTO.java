@@ -0,0 +1,28 @@
+package com.esprit.gestionfoyer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Outcome of one chunk of an import
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportLotDTO {
+    private int numeroLot;
+    private int lus;
+    private int inseres;
+    // CIN already seen earlier in the same import
+    private int doublons;
+    // CIN already stored in the database
+    private int existants;
+    // missing CIN or unreadable line
+    private int invalides;
+    // lines of a chunk rolled back as a whole, with the failure that caused it
+    private int echecs;
+    private String erreur;
+    private long dureeMs;
+    private double lignesParSeconde;
+}
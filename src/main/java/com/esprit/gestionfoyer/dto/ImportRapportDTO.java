@@ -0,0 +1,26 @@
+package com.esprit.gestionfoyer.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class ImportRapportDTO {
+    private List<ImportLotDTO> lots = new ArrayList<>();
+    private int totalLus;
+    private int totalInseres;
+    private int totalRejetes;
+    private int totalEchecs;
+    private long dureeMs;
+
+    public void ajouter(ImportLotDTO lot) {
+        lots.add(lot);
+        totalLus += lot.getLus();
+        totalInseres += lot.getInseres();
+        totalRejetes += lot.getDoublons() + lot.getExistants() + lot.getInvalides();
+        totalEchecs += lot.getEchecs();
+    }
+}
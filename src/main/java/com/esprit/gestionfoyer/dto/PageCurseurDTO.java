@@ -0,0 +1,26 @@
+package com.esprit.gestionfoyer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageCurseurDTO<T, C> {
+    private List<T> contenu;
+    // Id of the last element, to pass as "apres" for the next page; null on the last page
+    private C curseurSuivant;
+
+    public static <T, C> PageCurseurDTO<T, C> of(Slice<T> slice, Function<T, C> cle) {
+        List<T> contenu = slice.getContent();
+        C curseurSuivant = slice.hasNext() && !contenu.isEmpty() ? cle.apply(contenu.get(contenu.size() - 1)) : null;
+        return new PageCurseurDTO<>(contenu, curseurSuivant);
+    }
+}
@@ -0,0 +1,21 @@
+package com.esprit.gestionfoyer.dto;
+
+import com.esprit.gestionfoyer.entites.TypeChambre;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+public class ProvisionnementBlocDTO {
+    private String nomBloc;
+    private Long capaciteBloc;
+    // Numbers of the chambres to create, per type
+    private Map<TypeChambre, List<Long>> chambres = new EnumMap<>(TypeChambre.class);
+    // Ids of existing chambres, not yet in a bloc, to attach to this one
+    private List<Long> idChambresExistantes = new ArrayList<>();
+}
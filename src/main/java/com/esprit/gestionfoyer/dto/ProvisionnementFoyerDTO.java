@@ -0,0 +1,17 @@
+package com.esprit.gestionfoyer.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A whole foyer tree to create for a university in one request
+@Getter
+@Setter
+public class ProvisionnementFoyerDTO {
+    private long idUniversite;
+    private String nomFoyer;
+    private Long capaciteFoyer;
+    private List<ProvisionnementBlocDTO> blocs = new ArrayList<>();
+}
@@ -0,0 +1,19 @@
+package com.esprit.gestionfoyer.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+public class ProvisionnementRapportDTO {
+    private Long idFoyer;
+    private int blocs;
+    private int chambresCreees;
+    private int chambresAffectees;
+    // Duration of each stage, in execution order
+    private Map<String, Long> etapesMs = new LinkedHashMap<>();
+    private long dureeMs;
+}
@@ -0,0 +1,24 @@
+package com.esprit.gestionfoyer.dto;
+
+import com.esprit.gestionfoyer.entites.TypeChangementReservation;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationChangementDTO {
+    private Long sequence;
+    private String idReservation;
+    private TypeChangementReservation typeChangement;
+    private Long idChambre;
+    private LocalDate anneeUniversitaire;
+    private boolean estValide;
+    private LocalDateTime dateChangement;
+}
@@ -0,0 +1,18 @@
+package com.esprit.gestionfoyer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationResultatDTO {
+    private long idChambre;
+    private long cinEtudiant;
+    private String idReservation;
+    private boolean succes;
+    private String message;
+}
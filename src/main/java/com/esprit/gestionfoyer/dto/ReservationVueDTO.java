@@ -0,0 +1,30 @@
+package com.esprit.gestionfoyer.dto;
+
+import com.esprit.gestionfoyer.entites.Reservation;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationVueDTO {
+    private String idReservation;
+    private LocalDate anneeUniversitaire;
+    private boolean estValide;
+    private Long version;
+    // Null once the reservation is cancelled
+    private Long idChambre;
+    private Long numeroChambre;
+
+    public static ReservationVueDTO of(Reservation reservation) {
+        return new ReservationVueDTO(reservation.getIdReservation(), reservation.getAnneeUniversitaire(),
+                reservation.isEstValide(), reservation.getVersion(),
+                reservation.getChambre() == null ? null : reservation.getChambre().getIdChambre(),
+                reservation.getChambre() == null ? null : reservation.getChambre().getNumeroChambre());
+    }
+}
@@ -0,0 +1,29 @@
+package com.esprit.gestionfoyer.dto;
+
+import com.esprit.gestionfoyer.entites.TypeChambre;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Occupancy of the chambres of one type in one bloc for one academic year
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatistiqueOccupationDTO {
+    // academic start year, e.g. 2024 for 2024/2025
+    private int annee;
+    private Long idUniversite;
+    private String nomUniversite;
+    private Long idFoyer;
+    private String nomFoyer;
+    private Long idBloc;
+    private String nomBloc;
+    private TypeChambre typeC;
+    private long chambres;
+    private long places;
+    private long reservations;
+    // reservations / places
+    private double tauxOccupation;
+}
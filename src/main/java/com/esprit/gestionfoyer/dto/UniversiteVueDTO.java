@@ -0,0 +1,27 @@
+package com.esprit.gestionfoyer.dto;
+
+import com.esprit.gestionfoyer.entites.Universite;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UniversiteVueDTO {
+    private Long idUniversite;
+    private String nomUniversite;
+    private String adresse;
+    private Long version;
+    private Long idFoyer;
+    private String nomFoyer;
+
+    public static UniversiteVueDTO of(Universite universite) {
+        return new UniversiteVueDTO(universite.getIdUniversite(), universite.getNomUniversite(), universite.getAdresse(),
+                universite.getVersion(),
+                universite.getFoyer() == null ? null : universite.getFoyer().getIdFoyer(),
+                universite.getFoyer() == null ? null : universite.getFoyer().getNomFoyer());
+    }
+}
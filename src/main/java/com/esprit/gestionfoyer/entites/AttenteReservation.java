@@ -0,0 +1,43 @@
+package com.esprit.gestionfoyer.entites;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// A student waiting for a place of a given type in a university, served in arrival order
+@Entity
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Table(indexes = {
+        // Head of each waiting list
+        @Index(name = "idx_attente_file", columnList = "id_universite, typec, id_reservation, date_cloture, id_attente"),
+        @Index(name = "idx_attente_cin", columnList = "cin_etudiant")
+})
+public class AttenteReservation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long idAttente;
+
+    @Column(nullable = false)
+    private Long cinEtudiant;
+
+    @Column(nullable = false)
+    private Long idUniversite;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TypeChambre typeC;
+
+    private LocalDateTime dateDemande;
+
+    // Set once the student has been given a place
+    private String idReservation;
+    private LocalDateTime datePromotion;
+
+    // Set when the entry leaves the list without a place: the student was removed or housed meanwhile
+    private LocalDateTime dateCloture;
+}
@@ -0,0 +1,19 @@
+package com.esprit.gestionfoyer.entites;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Shared counter of a named sequence: each node reserves ranges of values by advancing it
+@Entity
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+public class CompteurSequence {
+    @Id
+    private String nom;
+
+    // first value not yet handed out to any node
+    private long valeur;
+}
@@ -13,6 +13,7 @@ import java.util.List;
 @Entity
 @Getter @Setter
 @NoArgsConstructor @AllArgsConstructor
+@Table(indexes = @Index(name = "uk_etudiant_cin", columnList = "cin", unique = true))
 public class Etudiant {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -24,6 +25,10 @@ public class Etudiant {
     private String ecole;
     private LocalDate dateNaissance;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     // Relation Many-to-Many bidirectionnelle avec Réservation (Etudiant est le child)
     @ManyToMany(mappedBy = "etudiants")
     private List<Reservation> reservations = new ArrayList<>();
@@ -0,0 +1,29 @@
+package com.esprit.gestionfoyer.entites;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Occupied places of a chambre for one academic year, kept in step with its valid reservations
+@Entity
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_occupation_chambre_annee", columnNames = {"id_chambre", "annee"}),
+        indexes = @Index(name = "idx_occupation_annee_occupe", columnList = "annee, occupe"))
+public class OccupationChambre {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long idOccupation;
+
+    @Column(nullable = false)
+    private Long idChambre;
+
+    // academic start year, e.g. 2024 for 2024/2025
+    private int annee;
+
+    private int occupe;
+
+    private int capacite;
+}
@@ -14,7 +14,14 @@ import java.util.List;
 @Entity
 @Getter @Setter
 @NoArgsConstructor @AllArgsConstructor
-
+@Table(indexes = {
+        // Capacity checks of one chambre
+        @Index(name = "idx_reservation_chambre_valide", columnList = "chambre_id, est_valide, annee_universitaire"),
+        // Occupancy of every chambre for a year, grouped by chambre
+        @Index(name = "idx_reservation_valide_annee", columnList = "est_valide, annee_universitaire, chambre_id"),
+        // Reservations of a year
+        @Index(name = "idx_reservation_annee", columnList = "annee_universitaire")
+})
 public class Reservation {
     @Id
     private String idReservation;  // ex: 12-2024-12345678
@@ -24,6 +31,10 @@ public class Reservation {
 
     private boolean estValide;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     // Réservation appartient à UNE seule chambre
     @ManyToOne
     @JoinColumn(name = "chambre_id")
@@ -35,7 +46,12 @@ public class Reservation {
     @JoinTable(
             name = "reservation_etudiant",
             joinColumns = @JoinColumn(name = "reservation_id"),
-            inverseJoinColumns = @JoinColumn(name = "etudiant_id")
+            inverseJoinColumns = @JoinColumn(name = "etudiant_id"),
+            // Reservations of a student, and students of a reservation
+            indexes = {
+                    @Index(name = "idx_reservation_etudiant_etudiant", columnList = "etudiant_id, reservation_id"),
+                    @Index(name = "idx_reservation_etudiant_reservation", columnList = "reservation_id, etudiant_id")
+            }
     )
     private List<Etudiant> etudiants = new ArrayList<>();
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.esprit.gestionfoyer.entites;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reservation of a closed academic year, moved out of the live table; read-only
+@Entity
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Table(indexes = @Index(name = "idx_reservation_archive_annee", columnList = "annee_universitaire"))
+public class ReservationArchive {
+    @Id
+    private String idReservation;
+
+    @Column(nullable = false)
+    private LocalDate anneeUniversitaire;
+
+    private boolean estValide;
+
+    private Long version;
+
+    // Plain ids, no foreign keys: the chambre or the students may be removed once the year is closed
+    @Column(name = "chambre_id")
+    private Long idChambre;
+
+    @ElementCollection
+    @CollectionTable(
+            name = "reservation_etudiant_archive",
+            joinColumns = @JoinColumn(name = "reservation_id"),
+            indexes = @Index(name = "idx_reservation_etudiant_archive_etudiant", columnList = "etudiant_id, reservation_id")
+    )
+    @Column(name = "etudiant_id")
+    private List<Long> idEtudiants = new ArrayList<>();
+
+    private LocalDateTime dateArchivage;
+}
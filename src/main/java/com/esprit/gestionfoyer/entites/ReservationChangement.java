@@ -0,0 +1,41 @@
+package com.esprit.gestionfoyer.entites;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Append-only log of the reservation changes, written in the transaction of each change and read by sequence
+@Entity
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Table(indexes = @Index(name = "idx_changement_sequence", columnList = "sequence", unique = true))
+public class ReservationChangement {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long idChangement;
+
+    // Cursor of the consumers, in commit order; set just before the commit of the change
+    private Long sequence;
+
+    @Column(nullable = false)
+    private String idReservation;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TypeChangementReservation typeChangement;
+
+    // Chambre of the reservation, the one given back for a cancellation
+    private Long idChambre;
+
+    private LocalDate anneeUniversitaire;
+
+    private boolean estValide;
+
+    @Column(nullable = false)
+    private LocalDateTime dateChangement;
+}
@@ -1,7 +1,15 @@
 package com.esprit.gestionfoyer.entites;
 
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
 public enum TypeChambre {
-    SIMPLE,
-    DOUBLE,
-    TRIPLE
+    SIMPLE(1),
+    DOUBLE(2),
+    TRIPLE(3);
+
+    // Number of students a chambre of this type can host
+    private final int capacite;
 }
@@ -0,0 +1,7 @@
+package com.esprit.gestionfoyer.entites;
+
+public enum TypeChangementReservation {
+    AJOUT,
+    MODIFICATION,
+    ANNULATION
+}
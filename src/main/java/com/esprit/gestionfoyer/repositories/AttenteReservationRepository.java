@@ -0,0 +1,46 @@
+package com.esprit.gestionfoyer.repositories;
+
+import com.esprit.gestionfoyer.dto.AttenteReservationVueDTO;
+import com.esprit.gestionfoyer.entites.AttenteReservation;
+import com.esprit.gestionfoyer.entites.TypeChambre;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface AttenteReservationRepository extends JpaRepository<AttenteReservation, Long> {
+
+    // Response view: the columns of the entry
+    String VUE = "new com.esprit.gestionfoyer.dto.AttenteReservationVueDTO(a.idAttente, a.cinEtudiant, a.idUniversite, a.typeC, " +
+            "a.dateDemande, a.idReservation, a.datePromotion, a.dateCloture)";
+
+    boolean existsByCinEtudiantAndIdReservationIsNullAndDateClotureIsNull(Long cinEtudiant);
+
+    @Query("SELECT " + VUE + " FROM AttenteReservation a WHERE a.cinEtudiant = :cinEtudiant ORDER BY a.idAttente DESC")
+    List<AttenteReservationVueDTO> findVuesParCinEtudiant(@Param("cinEtudiant") Long cinEtudiant);
+
+    // Oldest open entries of the list; the promotion closes those whose student was removed or housed
+    // meanwhile. Rows locked by a promotion running on another node are skipped (lock timeout -2 = SKIP LOCKED)
+    // instead of being promoted twice.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT a FROM AttenteReservation a WHERE a.idUniversite = :idUniversite AND a.typeC = :typeC " +
+            "AND a.idReservation IS NULL AND a.dateCloture IS NULL ORDER BY a.idAttente")
+    List<AttenteReservation> findProchainsAPromouvoir(@Param("idUniversite") Long idUniversite,
+                                                      @Param("typeC") TypeChambre typeC, Pageable pageable);
+
+    // Number of students ahead in the same waiting list, leaving out the entries not closed yet
+    // whose student was removed or housed meanwhile
+    @Query("SELECT COUNT(a) FROM AttenteReservation a WHERE a.idUniversite = :idUniversite AND a.typeC = :typeC " +
+            "AND a.idReservation IS NULL AND a.dateCloture IS NULL AND a.idAttente < :idAttente " +
+            "AND EXISTS (SELECT e FROM Etudiant e WHERE e.cin = a.cinEtudiant) " +
+            "AND NOT EXISTS (SELECT r FROM Reservation r JOIN r.etudiants e WHERE e.cin = a.cinEtudiant AND r.estValide = true)")
+    long countDevant(@Param("idUniversite") Long idUniversite, @Param("typeC") TypeChambre typeC,
+                     @Param("idAttente") Long idAttente);
+}
@@ -1,11 +1,38 @@
 package com.esprit.gestionfoyer.repositories;
 
+import com.esprit.gestionfoyer.dto.BlocVueDTO;
 import com.esprit.gestionfoyer.entites.Bloc;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 @Repository
 public interface BlocRepository extends JpaRepository<Bloc, Long> {
 
+    // Response view: the bloc columns and the id and name of its foyer, the chambres are not read
+    String VUE = "new com.esprit.gestionfoyer.dto.BlocVueDTO(b.idBloc, b.nomBloc, b.capaciteBloc, b.version, f.idFoyer, f.nomFoyer)";
+
+    @Query("SELECT " + VUE + " FROM Bloc b LEFT JOIN b.foyer f ORDER BY b.idBloc")
+    List<BlocVueDTO> findAllVues();
+
+    @Query("SELECT " + VUE + " FROM Bloc b LEFT JOIN b.foyer f WHERE b.idBloc = :id")
+    Optional<BlocVueDTO> findVueById(@Param("id") Long id);
+
+    // Keyset page ordered by id, with an optional foyer filter
+    @Query("SELECT " + VUE + " FROM Bloc b LEFT JOIN b.foyer f " +
+            "WHERE b.idBloc > :apres AND (:idFoyer IS NULL OR f.idFoyer = :idFoyer) ORDER BY b.idBloc")
+    Slice<BlocVueDTO> findPageVues(@Param("apres") long apres, @Param("idFoyer") Long idFoyer, Pageable pageable);
+
+    // Name and capacity of the bloc, only if nobody changed it since the given version
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Bloc b SET b.nomBloc = :nomBloc, b.capaciteBloc = :capaciteBloc, b.version = b.version + 1 " +
+            "WHERE b.idBloc = :id AND b.version = :version")
+    int updateChamps(@Param("id") Long id, @Param("version") long version,
+                     @Param("nomBloc") String nomBloc, @Param("capaciteBloc") Long capaciteBloc);
 }
@@ -1,24 +1,146 @@
 package com.esprit.gestionfoyer.repositories;
 
+import com.esprit.gestionfoyer.dto.ChambreVueDTO;
+import com.esprit.gestionfoyer.entites.Bloc;
 import com.esprit.gestionfoyer.entites.Chambre;
 import com.esprit.gestionfoyer.entites.Reservation;
 import com.esprit.gestionfoyer.entites.TypeChambre;
 import com.esprit.gestionfoyer.entites.Universite;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ChambreRepository extends JpaRepository<Chambre, Long> {
 
-    List<Chambre> findByNumeroChambreIn(List<Long> numeroChambre);
-    List<Chambre> findByBlocIdBlocAndTypeC(long idBloc, TypeChambre typeC);
+    // Response view: the chambre columns and the id and name of its bloc
+    String VUE = "new com.esprit.gestionfoyer.dto.ChambreVueDTO(c.idChambre, c.numeroChambre, c.typeC, b.idBloc, b.nomBloc, c.version)";
+
+    // University and type of each given chambre: each row is [idChambre, idUniversite, typeC]
+    @Query("SELECT c.idChambre, u.idUniversite, c.typeC FROM Chambre c JOIN c.bloc b JOIN b.foyer f JOIN f.universite u " +
+            "WHERE c.idChambre IN :idChambres")
+    List<Object[]> findUniversiteEtTypeParIdChambreIn(@Param("idChambres") Collection<Long> idChambres);
+
+    // Number of chambres per university, foyer, bloc and type:
+    // each row is [idUniversite, nomUniversite, idFoyer, nomFoyer, idBloc, nomBloc, typeC, count]
+    @Query("SELECT u.idUniversite, u.nomUniversite, f.idFoyer, f.nomFoyer, b.idBloc, b.nomBloc, c.typeC, COUNT(c) " +
+            "FROM Chambre c JOIN c.bloc b JOIN b.foyer f JOIN f.universite u " +
+            "WHERE :nomUniversite IS NULL OR u.nomUniversite = :nomUniversite " +
+            "GROUP BY u.idUniversite, u.nomUniversite, f.idFoyer, f.nomFoyer, b.idBloc, b.nomBloc, c.typeC " +
+            "ORDER BY u.nomUniversite, f.nomFoyer, b.nomBloc, c.typeC")
+    List<Object[]> countParBlocEtType(@Param("nomUniversite") String nomUniversite);
+
+    // Every requested chambre in one statement, with its bloc fetched for the reservation number
+    @Query("SELECT c FROM Chambre c LEFT JOIN FETCH c.bloc WHERE c.idChambre IN :idChambres")
+    List<Chambre> findAllAvecBlocByIdIn(@Param("idChambres") Collection<Long> idChambres);
+
+    @Query("SELECT c.idChambre FROM Chambre c WHERE c.bloc.idBloc = :idBloc AND c.numeroChambre IN :numeros")
+    List<Long> findIdsParBlocEtNumeros(@Param("idBloc") long idBloc, @Param("numeros") Collection<Long> numeros);
+
+    @Query("SELECT c.idChambre FROM Chambre c WHERE c.bloc.foyer.idFoyer = :idFoyer")
+    List<Long> findIdsParFoyer(@Param("idFoyer") long idFoyer);
+
     List<Chambre> findByBlocFoyerUniversiteNomUniversiteAndTypeC(String nomUniversite, TypeChambre typeC);
     List<Chambre> findByBlocFoyerUniversiteNomUniversite(String nomUniversite);
-    
+
+    @Query("SELECT " + VUE + " FROM Chambre c LEFT JOIN c.bloc b ORDER BY c.idChambre")
+    List<ChambreVueDTO> findAllVues();
+
+    @Query("SELECT " + VUE + " FROM Chambre c LEFT JOIN c.bloc b WHERE c.idChambre = :id")
+    Optional<ChambreVueDTO> findVueById(@Param("id") Long id);
+
+    @Query("SELECT " + VUE + " FROM Chambre c JOIN c.bloc b WHERE b.idBloc = :idBloc AND c.typeC = :typeC ORDER BY c.numeroChambre")
+    List<ChambreVueDTO> findVuesParBlocEtType(@Param("idBloc") long idBloc, @Param("typeC") TypeChambre typeC);
+
+    // Keyset page ordered by id, with optional type and bloc filters
+    @Query("SELECT " + VUE + " FROM Chambre c LEFT JOIN c.bloc b " +
+            "WHERE c.idChambre > :apres AND (:typeC IS NULL OR c.typeC = :typeC) AND (:idBloc IS NULL OR b.idBloc = :idBloc) " +
+            "ORDER BY c.idChambre")
+    Slice<ChambreVueDTO> findPageVues(@Param("apres") long apres, @Param("typeC") TypeChambre typeC,
+                                      @Param("idBloc") Long idBloc, Pageable pageable);
+
+    // Cursor-based read of the whole table for the streaming export
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT " + VUE + " FROM Chambre c LEFT JOIN c.bloc b")
+    Stream<ChambreVueDTO> streamVues();
+
+    // Lightweight views of every chambre of a foyer, in one join query
+    @Query("SELECT " + VUE + " FROM Chambre c JOIN c.bloc b WHERE b.foyer.idFoyer = :idFoyer ORDER BY b.idBloc, c.numeroChambre")
+    List<ChambreVueDTO> findVuesParIdFoyer(@Param("idFoyer") Long idFoyer);
+
+    // Views of the chambres of a university and type
+    @Query("SELECT " + VUE + " FROM Chambre c JOIN c.bloc b JOIN b.foyer f JOIN f.universite u " +
+            "WHERE u.nomUniversite = :nomUniversite AND c.typeC = :typeC")
+    List<ChambreVueDTO> findVuesParNomUniversiteEtTypeC(@Param("nomUniversite") String nomUniversite,
+                                                        @Param("typeC") TypeChambre typeC);
+
+    // Non-reserved chambres for the academic year, read from the occupancy table (no row means no reservation)
+    @Query("SELECT " + VUE + " FROM Chambre c JOIN c.bloc b JOIN b.foyer f JOIN f.universite u " +
+            "LEFT JOIN OccupationChambre o ON o.idChambre = c.idChambre AND o.annee = :annee " +
+            "WHERE u.nomUniversite = :nomUniversite AND c.typeC = :typeC AND (o.occupe IS NULL OR o.occupe = 0)")
+    List<ChambreVueDTO> findVuesNonReserveesParNomUniversiteEtTypeC(@Param("nomUniversite") String nomUniversite,
+                                                                    @Param("typeC") TypeChambre typeC,
+                                                                    @Param("annee") int annee);
+
+    // Views of the non-reserved chambres of every university:
+    // each row is [nomUniversite, idChambre, numeroChambre, typeC, idBloc, nomBloc, version]
+    @Query("SELECT u.nomUniversite, c.idChambre, c.numeroChambre, c.typeC, b.idBloc, b.nomBloc, c.version " +
+            "FROM Chambre c JOIN c.bloc b JOIN b.foyer f JOIN f.universite u " +
+            "LEFT JOIN OccupationChambre o ON o.idChambre = c.idChambre AND o.annee = :annee " +
+            "WHERE o.occupe IS NULL OR o.occupe = 0 ORDER BY b.idBloc, c.numeroChambre")
+    List<Object[]> findVuesNonReserveesPourToutesUniversites(@Param("annee") int annee);
+
+    // Same, restricted to the given chambres
+    @Query("SELECT u.nomUniversite, c.idChambre, c.numeroChambre, c.typeC, b.idBloc, b.nomBloc, c.version " +
+            "FROM Chambre c JOIN c.bloc b JOIN b.foyer f JOIN f.universite u " +
+            "LEFT JOIN OccupationChambre o ON o.idChambre = c.idChambre AND o.annee = :annee " +
+            "WHERE c.idChambre IN :idChambres AND (o.occupe IS NULL OR o.occupe = 0)")
+    List<Object[]> findVuesNonReserveesIn(@Param("annee") int annee, @Param("idChambres") Collection<Long> idChambres);
+
+    // Places of the chambres attached to a university, for the allocator:
+    // each row is [nomUniversite, idChambre, typeC, idBloc, numeroChambre, occupe], occupe is null without a row for the year
+    @Query("SELECT u.nomUniversite, c.idChambre, c.typeC, b.idBloc, c.numeroChambre, o.occupe " +
+            "FROM Chambre c JOIN c.bloc b JOIN b.foyer f JOIN f.universite u " +
+            "LEFT JOIN OccupationChambre o ON o.idChambre = c.idChambre AND o.annee = :annee")
+    List<Object[]> findPlaces(@Param("annee") int annee);
+
+    // Same, restricted to the given chambres
+    @Query("SELECT u.nomUniversite, c.idChambre, c.typeC, b.idBloc, c.numeroChambre, o.occupe " +
+            "FROM Chambre c JOIN c.bloc b JOIN b.foyer f JOIN f.universite u " +
+            "LEFT JOIN OccupationChambre o ON o.idChambre = c.idChambre AND o.annee = :annee " +
+            "WHERE c.idChambre IN :idChambres")
+    List<Object[]> findPlacesIn(@Param("annee") int annee, @Param("idChambres") Collection<Long> idChambres);
+
+    // Number and type in one statement; touches no row when the chambre moved past the given version
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Chambre c SET c.numeroChambre = :numeroChambre, c.typeC = :typeC, c.version = c.version + 1 " +
+            "WHERE c.idChambre = :id AND c.version = :version")
+    int updateChamps(@Param("id") Long id, @Param("version") long version,
+                     @Param("numeroChambre") long numeroChambre, @Param("typeC") TypeChambre typeC);
+
+    // Attaches the chambres with these numbers to the bloc in one statement; chambres already in another
+    // bloc are left out, so the caller can compare the count with the numbers it asked for
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Chambre c SET c.bloc = :bloc, c.version = c.version + 1 " +
+            "WHERE c.numeroChambre IN :numeros AND (c.bloc IS NULL OR c.bloc = :bloc)")
+    int affecterBloc(@Param("bloc") Bloc bloc, @Param("numeros") Collection<Long> numeros);
+
+    // Same by id, restricted to chambres in no bloc: numbers repeat across blocs, ids name exactly the chambres asked for
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Chambre c SET c.bloc = :bloc, c.version = c.version + 1 " +
+            "WHERE c.idChambre IN :idChambres AND c.bloc IS NULL")
+    int affecterBlocParIds(@Param("bloc") Bloc bloc, @Param("idChambres") Collection<Long> idChambres);
 }
@@ -0,0 +1,20 @@
+package com.esprit.gestionfoyer.repositories;
+
+import com.esprit.gestionfoyer.entites.CompteurSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface CompteurSequenceRepository extends JpaRepository<CompteurSequence, String> {
+
+    // Row-locks the counter until the end of the transaction
+    @Modifying
+    @Query("UPDATE CompteurSequence c SET c.valeur = c.valeur + :taille WHERE c.nom = :nom")
+    int avancer(@Param("nom") String nom, @Param("taille") long taille);
+
+    @Query("SELECT c.valeur FROM CompteurSequence c WHERE c.nom = :nom")
+    Optional<Long> findValeur(@Param("nom") String nom);
+}
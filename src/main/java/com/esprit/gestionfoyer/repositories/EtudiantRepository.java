@@ -1,13 +1,71 @@
 package com.esprit.gestionfoyer.repositories;
 
+import com.esprit.gestionfoyer.dto.EtudiantVueDTO;
 import com.esprit.gestionfoyer.entites.Etudiant;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface EtudiantRepository extends JpaRepository<Etudiant, Long> {
     Optional<Etudiant> findByCin(Long cin);
+
+    @Query("SELECT e.idEtudiant FROM Etudiant e WHERE e.cin = :cin")
+    Optional<Long> findIdByCin(@Param("cin") Long cin);
+
+    // Locks the students being admitted, so "already housed" holds until the commit. In CIN order: two
+    // batches sharing students lock them in the same order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "5000"))
+    @Query("SELECT e FROM Etudiant e WHERE e.cin IN :cins ORDER BY e.cin")
+    List<Etudiant> findForUpdateByCinIn(@Param("cins") Collection<Long> cins);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "5000"))
+    @Query("SELECT e FROM Etudiant e WHERE e.idEtudiant = :id")
+    Optional<Etudiant> findForUpdate(@Param("id") Long id);
+
+    @Query("SELECT e.cin FROM Etudiant e WHERE e.cin IN :cins")
+    List<Long> findCinsExistants(@Param("cins") Collection<Long> cins);
+
+    // Response view: the etudiant columns, the reservations are not read
+    String VUE = "new com.esprit.gestionfoyer.dto.EtudiantVueDTO(e.idEtudiant, e.nomEt, e.prenomEt, e.cin, e.ecole, e.dateNaissance, e.version)";
+
+    @Query("SELECT " + VUE + " FROM Etudiant e ORDER BY e.idEtudiant")
+    List<EtudiantVueDTO> findAllVues();
+
+    @Query("SELECT " + VUE + " FROM Etudiant e WHERE e.idEtudiant = :id")
+    Optional<EtudiantVueDTO> findVueById(@Param("id") Long id);
+
+    // Keyset page ordered by id, with an optional ecole filter
+    @Query("SELECT " + VUE + " FROM Etudiant e WHERE e.idEtudiant > :apres AND (:ecole IS NULL OR e.ecole = :ecole) ORDER BY e.idEtudiant")
+    Slice<EtudiantVueDTO> findPageVues(@Param("apres") long apres, @Param("ecole") String ecole, Pageable pageable);
+
+    // Cursor-based read of the whole table for the streaming export
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT " + VUE + " FROM Etudiant e")
+    Stream<EtudiantVueDTO> streamVues();
+
+    // Guarded by the version read just before, so a concurrent edit makes it update nothing
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Etudiant e SET e.nomEt = :nomEt, e.prenomEt = :prenomEt, e.cin = :cin, e.ecole = :ecole, " +
+            "e.dateNaissance = :dateNaissance, e.version = e.version + 1 WHERE e.idEtudiant = :id AND e.version = :version")
+    int updateChamps(@Param("id") Long id, @Param("version") long version, @Param("nomEt") String nomEt,
+                     @Param("prenomEt") String prenomEt, @Param("cin") Long cin, @Param("ecole") String ecole,
+                     @Param("dateNaissance") LocalDate dateNaissance);
 }
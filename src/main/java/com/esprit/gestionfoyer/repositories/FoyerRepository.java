@@ -1,11 +1,37 @@
 package com.esprit.gestionfoyer.repositories;
 
+import com.esprit.gestionfoyer.dto.FoyerVueDTO;
 import com.esprit.gestionfoyer.entites.Foyer;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 @Repository
 public interface FoyerRepository extends JpaRepository<Foyer, Long> {
 
+    // Response view: the foyer columns and the id and name of its universite, the blocs are not read
+    String VUE = "new com.esprit.gestionfoyer.dto.FoyerVueDTO(f.idFoyer, f.nomFoyer, f.capaciteFoyer, f.version, u.idUniversite, u.nomUniversite)";
+
+    @Query("SELECT " + VUE + " FROM Foyer f LEFT JOIN f.universite u ORDER BY f.idFoyer")
+    List<FoyerVueDTO> findAllVues();
+
+    @Query("SELECT " + VUE + " FROM Foyer f LEFT JOIN f.universite u WHERE f.idFoyer = :id")
+    Optional<FoyerVueDTO> findVueById(@Param("id") Long id);
+
+    // Keyset page ordered by id
+    @Query("SELECT " + VUE + " FROM Foyer f LEFT JOIN f.universite u WHERE f.idFoyer > :apres ORDER BY f.idFoyer")
+    Slice<FoyerVueDTO> findPageVues(@Param("apres") long apres, Pageable pageable);
+
+    // Name and capacity of the foyer, guarded by its version
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Foyer f SET f.nomFoyer = :nomFoyer, f.capaciteFoyer = :capaciteFoyer, f.version = f.version + 1 " +
+            "WHERE f.idFoyer = :id AND f.version = :version")
+    int updateChamps(@Param("id") Long id, @Param("version") long version,
+                     @Param("nomFoyer") String nomFoyer, @Param("capaciteFoyer") Long capaciteFoyer);
 }
@@ -0,0 +1,70 @@
+package com.esprit.gestionfoyer.repositories;
+
+import com.esprit.gestionfoyer.entites.OccupationChambre;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface OccupationChambreRepository extends JpaRepository<OccupationChambre, Long> {
+
+    boolean existsByIdChambreAndAnnee(Long idChambre, int annee);
+
+    // Chambres with at least one occupied place for the year
+    List<OccupationChambre> findByAnneeAndOccupeGreaterThan(int annee, int occupe);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "5000"))
+    @Query("SELECT o FROM OccupationChambre o WHERE o.annee = :annee AND o.idChambre IN :idChambres")
+    List<OccupationChambre> findForUpdate(@Param("annee") int annee, @Param("idChambres") Collection<Long> idChambres);
+
+    // Takes a place only if one is left: returns 0 when the chambre is full or has no row for the year
+    @Modifying
+    @Query("UPDATE OccupationChambre o SET o.occupe = o.occupe + 1 " +
+            "WHERE o.idChambre = :idChambre AND o.annee = :annee AND o.occupe < o.capacite")
+    int occuper(@Param("idChambre") Long idChambre, @Param("annee") int annee);
+
+    @Modifying
+    @Query("UPDATE OccupationChambre o SET o.occupe = o.occupe - 1 " +
+            "WHERE o.idChambre = :idChambre AND o.annee = :annee AND o.occupe > 0")
+    int liberer(@Param("idChambre") Long idChambre, @Param("annee") int annee);
+
+    // Rows of a chambre from the given year on, locked so no admission lands while its capacity changes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "5000"))
+    @Query("SELECT o FROM OccupationChambre o WHERE o.idChambre = :idChambre AND o.annee >= :annee")
+    List<OccupationChambre> findForUpdateDepuis(@Param("idChambre") Long idChambre, @Param("annee") int annee);
+
+    @Modifying
+    @Query("UPDATE OccupationChambre o SET o.capacite = :capacite WHERE o.idChambre = :idChambre")
+    int updateCapacite(@Param("idChambre") Long idChambre, @Param("capacite") int capacite);
+
+    @Modifying
+    @Query("DELETE FROM OccupationChambre o WHERE o.idChambre = :idChambre")
+    int deleteByIdChambre(@Param("idChambre") Long idChambre);
+
+    // Chambres without a row for the year: each row is [idChambre, typeC]
+    @Query("SELECT c.idChambre, c.typeC FROM Chambre c " +
+            "WHERE NOT EXISTS (SELECT o FROM OccupationChambre o WHERE o.idChambre = c.idChambre AND o.annee = :annee)")
+    List<Object[]> findChambresSansOccupation(@Param("annee") int annee);
+
+    // Same, restricted to the given chambres
+    @Query("SELECT c.idChambre, c.typeC FROM Chambre c WHERE c.idChambre IN :idChambres " +
+            "AND NOT EXISTS (SELECT o FROM OccupationChambre o WHERE o.idChambre = c.idChambre AND o.annee = :annee)")
+    List<Object[]> findChambresSansOccupationIn(@Param("annee") int annee, @Param("idChambres") Collection<Long> idChambres);
+
+    // Recomputes every row of the year from the valid reservations
+    @Modifying
+    @Query("UPDATE OccupationChambre o SET o.occupe = (SELECT COUNT(r) FROM Reservation r " +
+            "WHERE r.chambre.idChambre = o.idChambre AND r.estValide = true AND r.anneeUniversitaire BETWEEN :debut AND :fin) " +
+            "WHERE o.annee = :annee")
+    int recompter(@Param("annee") int annee, @Param("debut") LocalDate debut, @Param("fin") LocalDate fin);
+}
@@ -0,0 +1,51 @@
+package com.esprit.gestionfoyer.repositories;
+
+import com.esprit.gestionfoyer.dto.ReservationVueDTO;
+import com.esprit.gestionfoyer.entites.ReservationArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ReservationArchiveRepository extends JpaRepository<ReservationArchive, String> {
+
+    // Same response view as the live reservations
+    String VUE = "new com.esprit.gestionfoyer.dto.ReservationVueDTO(a.idReservation, a.anneeUniversitaire, a.estValide, a.version, c.idChambre, c.numeroChambre)";
+
+    @Query("SELECT " + VUE + " FROM ReservationArchive a LEFT JOIN Chambre c ON c.idChambre = a.idChambre WHERE a.idReservation = :id")
+    Optional<ReservationVueDTO> findVueById(@Param("id") String id);
+
+    @Query("SELECT " + VUE + " FROM ReservationArchive a JOIN Chambre c ON c.idChambre = a.idChambre " +
+            "JOIN c.bloc b JOIN b.foyer f JOIN f.universite u " +
+            "WHERE u.nomUniversite = :nomUniversite AND a.anneeUniversitaire = :anneeUniversitaire")
+    List<ReservationVueDTO> findVuesParNomUniversiteEtAnneeUniversitaire(@Param("nomUniversite") String nomUniversite,
+                                                                        @Param("anneeUniversitaire") LocalDate anneeUniversitaire);
+
+    // Same grouping as ReservationRepository.countValidesParAnneeBlocEtType: each row is [annee, idBloc, typeC, count]
+    @Query("SELECT YEAR(a.anneeUniversitaire) - CASE WHEN MONTH(a.anneeUniversitaire) < 9 THEN 1 ELSE 0 END, b.idBloc, c.typeC, COUNT(a) " +
+            "FROM ReservationArchive a JOIN Chambre c ON c.idChambre = a.idChambre JOIN c.bloc b JOIN b.foyer f JOIN f.universite u " +
+            "WHERE a.estValide = true AND a.anneeUniversitaire BETWEEN :debut AND :fin " +
+            "AND (:nomUniversite IS NULL OR u.nomUniversite = :nomUniversite) " +
+            "GROUP BY YEAR(a.anneeUniversitaire) - CASE WHEN MONTH(a.anneeUniversitaire) < 9 THEN 1 ELSE 0 END, b.idBloc, c.typeC")
+    List<Object[]> countValidesParAnneeBlocEtType(@Param("debut") LocalDate debut, @Param("fin") LocalDate fin,
+                                                  @Param("nomUniversite") String nomUniversite);
+
+    // Copies the given live reservations in one statement, the caller deletes them in the same transaction
+    @Modifying
+    @Query(value = "INSERT INTO reservation_archive (id_reservation, annee_universitaire, est_valide, version, chambre_id, date_archivage) " +
+            "SELECT id_reservation, annee_universitaire, est_valide, version, chambre_id, :dateArchivage " +
+            "FROM reservation WHERE id_reservation IN :ids", nativeQuery = true)
+    int copierReservations(@Param("ids") Collection<String> ids, @Param("dateArchivage") LocalDateTime dateArchivage);
+
+    // Same for their students
+    @Modifying
+    @Query(value = "INSERT INTO reservation_etudiant_archive (reservation_id, etudiant_id) " +
+            "SELECT reservation_id, etudiant_id FROM reservation_etudiant WHERE reservation_id IN :ids", nativeQuery = true)
+    int copierEtudiants(@Param("ids") Collection<String> ids);
+}
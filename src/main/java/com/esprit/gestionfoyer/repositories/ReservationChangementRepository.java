@@ -0,0 +1,19 @@
+package com.esprit.gestionfoyer.repositories;
+
+import com.esprit.gestionfoyer.dto.ReservationChangementDTO;
+import com.esprit.gestionfoyer.entites.ReservationChangement;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ReservationChangementRepository extends JpaRepository<ReservationChangement, Long> {
+
+    String VUE = "new com.esprit.gestionfoyer.dto.ReservationChangementDTO(rc.sequence, rc.idReservation, rc.typeChangement, " +
+            "rc.idChambre, rc.anneeUniversitaire, rc.estValide, rc.dateChangement)";
+
+    // Changes after the cursor, in sequence order, read through the sequence index
+    @Query("SELECT " + VUE + " FROM ReservationChangement rc WHERE rc.sequence > :depuis ORDER BY rc.sequence")
+    Slice<ReservationChangementDTO> findVuesApres(@Param("depuis") long depuis, Pageable pageable);
+}
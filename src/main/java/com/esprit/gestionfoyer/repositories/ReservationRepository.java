@@ -1,20 +1,93 @@
 package com.esprit.gestionfoyer.repositories;
 
+import com.esprit.gestionfoyer.dto.ReservationVueDTO;
 import com.esprit.gestionfoyer.entites.Chambre;
 import com.esprit.gestionfoyer.entites.Etudiant;
 import com.esprit.gestionfoyer.entites.Reservation;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ReservationRepository extends JpaRepository<Reservation, String> {
+
+    // Response view: the reservation columns and the id and number of its chambre, the students are not read
+    String VUE = "new com.esprit.gestionfoyer.dto.ReservationVueDTO(r.idReservation, r.anneeUniversitaire, r.estValide, r.version, c.idChambre, c.numeroChambre)";
+
     List<Reservation> findByChambreAndEstValideTrue(Chambre chambre);
     List<Reservation> findByEtudiantsAndEstValideTrue(Etudiant etudiant);
-    List<Reservation> findByChambreBlocFoyerUniversiteNomUniversiteAndAnneeUniversitaire(String nomUniversite, LocalDate anneeUniversitaire);
+    // Current valid reservation of a student: a single row read through the reservation_etudiant index
+    Optional<Reservation> findFirstByEtudiantsIdEtudiantAndEstValideTrueOrderByAnneeUniversitaireDesc(Long idEtudiant);
+
+    // Those of the given students who already hold a valid reservation
+    @Query("SELECT DISTINCT e.cin FROM Reservation r JOIN r.etudiants e WHERE r.estValide = true AND e.cin IN :cins")
+    List<Long> findCinsAvecReservationValide(@Param("cins") Collection<Long> cins);
+
+    @Query("SELECT " + VUE + " FROM Reservation r JOIN r.chambre c JOIN c.bloc b JOIN b.foyer f JOIN f.universite u " +
+            "WHERE u.nomUniversite = :nomUniversite AND r.anneeUniversitaire = :anneeUniversitaire")
+    List<ReservationVueDTO> findVuesParNomUniversiteEtAnneeUniversitaire(@Param("nomUniversite") String nomUniversite,
+                                                                        @Param("anneeUniversitaire") LocalDate anneeUniversitaire);
 
     //List<Reservation> findByEstValideTrueAndAnneeUniversitaireBetween(LocalDate startDate, LocalDate endDate);
     // Get reservations for specific chambre
     List<Reservation> findByChambreIdChambreAndEstValideTrueAndAnneeUniversitaireBetween(Long idChambre, LocalDate startDate, LocalDate endDate);
 
+    // Valid reservations per academic year (starting in September), bloc and chambre type, counted in the database:
+    // each row is [annee, idBloc, typeC, count]
+    @Query("SELECT YEAR(r.anneeUniversitaire) - CASE WHEN MONTH(r.anneeUniversitaire) < 9 THEN 1 ELSE 0 END, b.idBloc, c.typeC, COUNT(r) " +
+            "FROM Reservation r JOIN r.chambre c JOIN c.bloc b JOIN b.foyer f JOIN f.universite u " +
+            "WHERE r.estValide = true AND r.anneeUniversitaire BETWEEN :debut AND :fin " +
+            "AND (:nomUniversite IS NULL OR u.nomUniversite = :nomUniversite) " +
+            "GROUP BY YEAR(r.anneeUniversitaire) - CASE WHEN MONTH(r.anneeUniversitaire) < 9 THEN 1 ELSE 0 END, b.idBloc, c.typeC")
+    List<Object[]> countValidesParAnneeBlocEtType(@Param("debut") LocalDate debut, @Param("fin") LocalDate fin,
+                                                  @Param("nomUniversite") String nomUniversite);
+
+    @Query("SELECT " + VUE + " FROM Reservation r LEFT JOIN r.chambre c ORDER BY r.idReservation")
+    List<ReservationVueDTO> findAllVues();
+
+    @Query("SELECT " + VUE + " FROM Reservation r LEFT JOIN r.chambre c WHERE r.idReservation = :id")
+    Optional<ReservationVueDTO> findVueById(@Param("id") String id);
+
+    // Keyset page ordered by id, with optional validity and chambre filters
+    @Query("SELECT " + VUE + " FROM Reservation r LEFT JOIN r.chambre c WHERE r.idReservation > :apres " +
+            "AND (:estValide IS NULL OR r.estValide = :estValide) AND (:idChambre IS NULL OR c.idChambre = :idChambre) " +
+            "ORDER BY r.idReservation")
+    Slice<ReservationVueDTO> findPageVues(@Param("apres") String apres, @Param("estValide") Boolean estValide,
+                                          @Param("idChambre") Long idChambre, Pageable pageable);
+
+    // Cursor-based read of the whole table for the streaming export
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT " + VUE + " FROM Reservation r LEFT JOIN r.chambre c")
+    Stream<ReservationVueDTO> streamVues();
+
+    // Guarded by the version read just before, so a concurrent edit makes it update nothing
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Reservation r SET r.anneeUniversitaire = :anneeUniversitaire, r.estValide = :estValide, " +
+            "r.version = r.version + 1 WHERE r.idReservation = :id AND r.version = :version")
+    int updateChamps(@Param("id") String id, @Param("version") long version,
+                     @Param("anneeUniversitaire") LocalDate anneeUniversitaire, @Param("estValide") boolean estValide);
+
+    // Reservations of the closed academic years, oldest first, one bounded batch at a time
+    @Query("SELECT r.idReservation FROM Reservation r WHERE r.anneeUniversitaire < :avant ORDER BY r.anneeUniversitaire")
+    List<String> findIdsAvant(@Param("avant") LocalDate avant, Pageable pageable);
+
+    // Removal of archived reservations, join table first
+    @Modifying
+    @Query(value = "DELETE FROM reservation_etudiant WHERE reservation_id IN :ids", nativeQuery = true)
+    int supprimerEtudiants(@Param("ids") Collection<String> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM reservation WHERE id_reservation IN :ids", nativeQuery = true)
+    int supprimer(@Param("ids") Collection<String> ids);
 }
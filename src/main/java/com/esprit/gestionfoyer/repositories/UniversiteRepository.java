@@ -1,10 +1,44 @@
 package com.esprit.gestionfoyer.repositories;
 
+import com.esprit.gestionfoyer.dto.UniversiteVueDTO;
 import com.esprit.gestionfoyer.entites.Universite;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UniversiteRepository extends JpaRepository<Universite, Long> {
+
+    // Response view: the universite columns and the id and name of its foyer, nothing else
+    String VUE = "new com.esprit.gestionfoyer.dto.UniversiteVueDTO(u.idUniversite, u.nomUniversite, u.adresse, u.version, f.idFoyer, f.nomFoyer)";
+
     Optional<Universite> findByNomUniversite(String nomUniversite);
+
+    @Query("SELECT " + VUE + " FROM Universite u LEFT JOIN u.foyer f ORDER BY u.idUniversite")
+    List<UniversiteVueDTO> findAllVues();
+
+    @Query("SELECT " + VUE + " FROM Universite u LEFT JOIN u.foyer f WHERE u.idUniversite = :id")
+    Optional<UniversiteVueDTO> findVueById(@Param("id") Long id);
+
+    // Keyset page ordered by id
+    @Query("SELECT " + VUE + " FROM Universite u LEFT JOIN u.foyer f WHERE u.idUniversite > :apres ORDER BY u.idUniversite")
+    Slice<UniversiteVueDTO> findPageVues(@Param("apres") long apres, Pageable pageable);
+
+    @Query("SELECT u.idUniversite FROM Universite u WHERE u.nomUniversite = :nomUniversite")
+    Optional<Long> findIdByNomUniversite(@Param("nomUniversite") String nomUniversite);
+
+    @Query("SELECT u.nomUniversite FROM Universite u")
+    List<String> findAllNomUniversite();
+
+    // Name and address; a stale version updates nothing
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Universite u SET u.nomUniversite = :nomUniversite, u.adresse = :adresse, u.version = u.version + 1 " +
+            "WHERE u.idUniversite = :id AND u.version = :version")
+    int updateChamps(@Param("id") Long id, @Param("version") long version,
+                     @Param("nomUniversite") String nomUniversite, @Param("adresse") String adresse);
 }
@@ -0,0 +1,248 @@
+package com.esprit.gestionfoyer.services;
+
+import com.esprit.gestionfoyer.entites.Chambre;
+import com.esprit.gestionfoyer.entites.TypeChambre;
+import com.esprit.gestionfoyer.repositories.ChambreRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Free places of the current academic year, ordered per university and chambre type so the best bed
+ * is taken in O(log n). Chambres already holding students come first, fullest first, so DOUBLE and
+ * TRIPLE chambres are completed before empty ones are opened; ties go to the lowest bloc and number.
+ * The occupancy table stays the authority: a place taken here is only kept if its conditional UPDATE
+ * succeeds, and the chambres touched by reservations are re-read after their commit.
+ */
+@Component
+public class AllocateurChambres {
+
+    private static final Comparator<Place> ORDRE = Comparator.comparing((Place place) -> place.occupe() == 0)
+            .thenComparingInt(Place::libres)
+            .thenComparingLong(Place::idBloc)
+            .thenComparingLong(Place::numeroChambre)
+            .thenComparingLong(Place::idChambre);
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+
+    @Autowired
+    private OccupationChambreService occupationChambreService;
+
+    private final AtomicReference<Etat> courant = new AtomicReference<>();
+
+    // Chambres whose places may have changed since they were last read
+    private final ConcurrentLinkedQueue<Long> aVerifier = new ConcurrentLinkedQueue<>();
+
+    // Serializes the rebuilds and the re-checks, allocations never take it
+    private final ReentrantLock verrou = new ReentrantLock();
+
+    // Takes the best free place of the university for the type, in the caller's transaction
+    public Optional<Chambre> allouer(String nomUniversite, TypeChambre typeC) {
+        int annee = AnneeUniversitaire.courante();
+        Etat etat = etat(annee);
+        ConcurrentSkipListSet<Place> file = etat.files().get(new File(nomUniversite, typeC));
+        if (file == null) {
+            return Optional.empty();
+        }
+        for (Place place = premiere(file); place != null; place = premiere(file)) {
+            // 1. Claim one bed in memory first, so concurrent allocations move on to the next best place;
+            // the head changed in the meantime when the claim fails
+            if (!prendre(etat, place)) {
+                continue;
+            }
+            // 2. The chambre may have changed type, or moved to a bloc or foyer of another university since it
+            // was read: drop the stale entry, the re-read files it again where it now belongs
+            Optional<Chambre> chambre = chambreRepository.findById(place.idChambre());
+            if (chambre.isEmpty() || !correspond(chambre.get(), place.file())) {
+                retirer(etat, place.idChambre());
+                aVerifier.add(place.idChambre());
+                continue;
+            }
+            // 3. The conditional UPDATE decides, a concurrent taker of the same row waits for this commit
+            if (occupationChambreService.occuper(chambre.get(), annee)) {
+                reverifierSiAnnulee(place.idChambre());
+                return chambre;
+            }
+            // 4. Full in the database: kept out of the file until it is re-read
+            placer(etat, place.avecOccupe(place.capacite()));
+            aVerifier.add(place.idChambre());
+        }
+        return Optional.empty();
+    }
+
+    // For writers outside the reservation flow (chambres created, moved or provisioned)
+    public void verifier(Collection<Long> idChambres) {
+        aVerifier.addAll(idChambres);
+    }
+
+    @TransactionalEventListener
+    public void onReservationAjoutee(ReservationAjouteeEvent event) {
+        aVerifier.add(event.idChambre());
+    }
+
+    @TransactionalEventListener
+    public void onReservationAnnulee(ReservationAnnuleeEvent event) {
+        aVerifier.add(event.idChambre());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${gestionfoyer.allocation.rafraichissement-ms:60000}",
+            initialDelayString = "${gestionfoyer.allocation.rafraichissement-ms:60000}")
+    public void reconstruire() {
+        verrou.lock();
+        try {
+            int annee = AnneeUniversitaire.courante();
+            Etat etat = new Etat(annee, new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+            for (Object[] ligne : chambreRepository.findPlaces(annee)) {
+                placer(etat, place(ligne));
+            }
+            courant.set(etat);
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${gestionfoyer.allocation.application-ms:1000}")
+    public void appliquer() {
+        Set<Long> idChambres = new HashSet<>();
+        for (Long idChambre = aVerifier.poll(); idChambre != null; idChambre = aVerifier.poll()) {
+            idChambres.add(idChambre);
+        }
+        if (idChambres.isEmpty() || courant.get() == null) {
+            return;
+        }
+        verrou.lock();
+        try {
+            Etat etat = courant.get();
+            // 1. Re-read the places of the chambres still attached to a university, in one query
+            for (Object[] ligne : chambreRepository.findPlacesIn(etat.annee(), idChambres)) {
+                Place place = place(ligne);
+                placer(etat, place);
+                idChambres.remove(place.idChambre());
+            }
+            // 2. The others were deleted or detached from their bloc
+            for (Long idChambre : idChambres) {
+                retirer(etat, idChambre);
+            }
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    // A new academic year starts from the database, not from the places of the previous one
+    private Etat etat(int annee) {
+        Etat etat = courant.get();
+        if (etat == null || etat.annee() != annee) {
+            reconstruire();
+            etat = courant.get();
+        }
+        return etat;
+    }
+
+    // Replaces the known place of a chambre, atomically for that chambre
+    private void placer(Etat etat, Place nouvelle) {
+        etat.places().compute(nouvelle.idChambre(), (id, ancienne) -> remplacer(etat, ancienne, nouvelle));
+    }
+
+    // Forgets the chambre, atomically for that chambre
+    private void retirer(Etat etat, long idChambre) {
+        etat.places().computeIfPresent(idChambre, (id, ancienne) -> {
+            file(etat, ancienne.file()).remove(ancienne);
+            return null;
+        });
+    }
+
+    // Same type and university as the file the place was taken from
+    private boolean correspond(Chambre chambre, File file) {
+        return chambre.getTypeC() == file.typeC()
+                && chambre.getBloc() != null
+                && chambre.getBloc().getFoyer() != null
+                && chambre.getBloc().getFoyer().getUniversite() != null
+                && file.nomUniversite().equals(chambre.getBloc().getFoyer().getUniversite().getNomUniversite());
+    }
+
+    // One more student in the chambre, unless its place changed since it was read
+    private boolean prendre(Etat etat, Place place) {
+        Place prise = place.avecOccupe(place.occupe() + 1);
+        return etat.places().computeIfPresent(place.idChambre(),
+                (id, actuelle) -> actuelle.equals(place) ? remplacer(etat, actuelle, prise) : actuelle) == prise;
+    }
+
+    // Only places with a free bed are in a file; the new one is added before the old one is removed,
+    // so the chambre never looks absent to a concurrent allocation
+    private Place remplacer(Etat etat, Place ancienne, Place nouvelle) {
+        if (nouvelle.libres() > 0) {
+            file(etat, nouvelle.file()).add(nouvelle);
+        }
+        if (ancienne != null && !ancienne.equals(nouvelle)) {
+            file(etat, ancienne.file()).remove(ancienne);
+        }
+        return nouvelle;
+    }
+
+    // Best place of the file, without taking it out
+    private Place premiere(ConcurrentSkipListSet<Place> file) {
+        Iterator<Place> places = file.iterator();
+        return places.hasNext() ? places.next() : null;
+    }
+
+    private ConcurrentSkipListSet<Place> file(Etat etat, File file) {
+        return etat.files().computeIfAbsent(file, cle -> new ConcurrentSkipListSet<>(ORDRE));
+    }
+
+    // The place taken optimistically is wrong if the caller rolls back: re-read the chambre then
+    private void reverifierSiAnnulee(long idChambre) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        aVerifier.add(idChambre);
+                    }
+                }
+            });
+        }
+    }
+
+    // [nomUniversite, idChambre, typeC, idBloc, numeroChambre, occupe]
+    private Place place(Object[] ligne) {
+        TypeChambre typeC = (TypeChambre) ligne[2];
+        return new Place(new File((String) ligne[0], typeC), (Long) ligne[1], (Long) ligne[3], (Long) ligne[4],
+                ligne[5] == null ? 0 : (Integer) ligne[5], OccupationChambreService.capacite(typeC));
+    }
+
+    private record File(String nomUniversite, TypeChambre typeC) {
+    }
+
+    private record Place(File file, long idChambre, long idBloc, long numeroChambre, int occupe, int capacite) {
+
+        int libres() {
+            return capacite - occupe;
+        }
+
+        Place avecOccupe(int occupe) {
+            return new Place(file, idChambre, idBloc, numeroChambre, occupe, capacite);
+        }
+    }
+
+    private record Etat(int annee, ConcurrentHashMap<File, ConcurrentSkipListSet<Place>> files, ConcurrentHashMap<Long, Place> places) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.esprit.gestionfoyer.services;
+
+import java.time.LocalDate;
+
+public final class AnneeUniversitaire {
+
+    private AnneeUniversitaire() {
+    }
+
+    // Academic year starts in September: a date before September belongs to the previous academic year
+    public static int anneeDebut(LocalDate date) {
+        return date.getMonthValue() >= 9 ? date.getYear() : date.getYear() - 1;
+    }
+
+    public static int courante() {
+        return anneeDebut(LocalDate.now());
+    }
+
+    public static LocalDate debut(int anneeDebut) {
+        return LocalDate.of(anneeDebut, 9, 1);
+    }
+
+    public static LocalDate fin(int anneeDebut) {
+        return debut(anneeDebut).plusYears(1).minusDays(1);
+    }
+}
@@ -0,0 +1,78 @@
+package com.esprit.gestionfoyer.services;
+
+import com.esprit.gestionfoyer.repositories.ReservationArchiveRepository;
+import com.esprit.gestionfoyer.repositories.ReservationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves the reservations of closed academic years from the live tables to reservation_archive, so the
+ * queries on validity and year only read the years still in use. Each bounded batch is copied and deleted
+ * in its own transaction: a reservation is either live or archived, never both or neither.
+ */
+@Slf4j
+@Component
+public class ArchivageReservations {
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private ReservationArchiveRepository reservationArchiveRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${gestionfoyer.archivage.taille-lot:500}")
+    private int tailleLot;
+
+    // Academic years kept in the live table, the current one included
+    @Value("${gestionfoyer.archivage.annees-conservees:2}")
+    private int anneesConservees;
+
+    @Scheduled(cron = "${gestionfoyer.archivage.cron:0 30 3 * * *}")
+    public void archiver() {
+        archiverAvant(AnneeUniversitaire.debut(AnneeUniversitaire.courante() - anneesConservees + 1));
+    }
+
+    public int archiverAvant(LocalDate avant) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        long debut = System.nanoTime();
+        int total = 0;
+        while (true) {
+            int archivees = transaction.execute(status -> archiverLot(avant));
+            total += archivees;
+            if (archivees < tailleLot) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Archived {} reservations before {} in {} ms", total, avant, (System.nanoTime() - debut) / 1_000_000);
+        }
+        return total;
+    }
+
+    private int archiverLot(LocalDate avant) {
+        List<String> ids = reservationRepository.findIdsAvant(avant, PageRequest.of(0, tailleLot));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        // 1. Copy the reservations, then their students, with INSERT ... SELECT
+        reservationArchiveRepository.copierReservations(ids, LocalDateTime.now());
+        reservationArchiveRepository.copierEtudiants(ids);
+        // 2. Delete them from the live tables
+        reservationRepository.supprimerEtudiants(ids);
+        reservationRepository.supprimer(ids);
+        return ids.size();
+    }
+}
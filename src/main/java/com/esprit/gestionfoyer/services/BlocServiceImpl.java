@@ -1,13 +1,17 @@
 package com.esprit.gestionfoyer.services;
 
+import com.esprit.gestionfoyer.dto.BlocVueDTO;
+import com.esprit.gestionfoyer.dto.PageCurseurDTO;
 import com.esprit.gestionfoyer.entites.Bloc;
-import com.esprit.gestionfoyer.entites.Chambre;
 import com.esprit.gestionfoyer.repositories.BlocRepository;
 import com.esprit.gestionfoyer.repositories.ChambreRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class BlocServiceImpl implements IBlocService {
@@ -16,24 +20,48 @@ public class BlocServiceImpl implements IBlocService {
     private BlocRepository blocRepository;
     @Autowired
     private ChambreRepository chambreRepository;
+    @Autowired
+    private TopologieCache topologieCache;
+
+    @Autowired
+    private ReessaiOptimiste reessaiOptimiste;
+    @Autowired
+    private DisponibiliteSnapshot disponibiliteSnapshot;
+
+    @Autowired
+    private AllocateurChambres allocateurChambres;
 
     @Override
-    public List<Bloc> retrieveAllBlocs() {
-        return blocRepository.findAll();
+    public List<BlocVueDTO> retrieveAllBlocs() {
+        return blocRepository.findAllVues();
+    }
+
+    @Override
+    public PageCurseurDTO<BlocVueDTO, Long> retrieveBlocsPage(Long apres, Integer taille, Long idFoyer) {
+        return PageCurseurDTO.of(blocRepository.findPageVues(Pagination.apres(apres), idFoyer, Pagination.limite(taille)),
+                BlocVueDTO::getIdBloc);
     }
 
     @Override
     public Bloc addBloc(Bloc bloc) {
-        return blocRepository.save(bloc);
+        Bloc savedBloc = blocRepository.save(bloc);
+        topologieCache.evictBlocsDesFoyers();
+        return savedBloc;
     }
 
     @Override
     public Bloc updateBloc(Bloc bloc) {
-        // Check if bloc exists before updating
-        if (blocRepository.existsById(bloc.getIdBloc())) {
-            return blocRepository.save(bloc);
-        }
-        throw new RuntimeException("Bloc not found with id: " + bloc.getIdBloc());
+        // 1. The version the client read the bloc at
+        long version = ReessaiOptimiste.versionExigee(bloc.getVersion(), "Bloc", bloc.getIdBloc());
+        reessaiOptimiste.executer(() -> {
+            // 2. Conditional update of the scalar fields
+            int lignes = blocRepository.updateChamps(bloc.getIdBloc(), version, bloc.getNomBloc(), bloc.getCapaciteBloc());
+            ReessaiOptimiste.verifier(lignes, () -> blocRepository.existsById(bloc.getIdBloc()), "Bloc", bloc.getIdBloc(), version);
+        });
+        // 3. Committed: the cached lists can no longer be refilled from the previous row, and the
+        // second-level cache entry invalidated by the bulk update is read again
+        topologieCache.evictBlocsDesFoyers();
+        return retrieveBloc(bloc.getIdBloc());
     }
 
     @Override
@@ -42,31 +70,39 @@ public class BlocServiceImpl implements IBlocService {
                 .orElseThrow(() -> new RuntimeException("Bloc not found with id: " + idBloc));
     }
 
+    @Override
+    public BlocVueDTO retrieveBlocVue(long idBloc) {
+        return blocRepository.findVueById(idBloc)
+                .orElseThrow(() -> new RuntimeException("Bloc not found with id: " + idBloc));
+    }
+
     @Override
     public void removeBloc(long idBloc) {
         if (blocRepository.existsById(idBloc)) {
             blocRepository.deleteById(idBloc);
+            topologieCache.evictBlocsDesFoyers();
+            topologieCache.evictChambresDesBlocs();
         } else {
             throw new RuntimeException("Bloc not found with id: " + idBloc);
         }
     }
 
     @Override
+    @Transactional
     public Bloc affecterChambresABloc(List<Long> numChambre, long idBloc) {
         // Find the bloc by ID
         Bloc bloc = blocRepository.findById(idBloc).orElseThrow(() -> new RuntimeException("Bloc not found with id: " + idBloc));
-        // Find all chambres by their numbers
-        List<Chambre> chambres = chambreRepository.findByNumeroChambreIn(numChambre);
-        // Check if all requested chambres were found
-        if (chambres.size() != numChambre.size()) {
-            throw new RuntimeException("Some chambres were not found");
-        }
-        // Assign the bloc to each chambre
-        for (Chambre chambre : chambres) {
-            chambre.setBloc(bloc);
+        // Assign the bloc with one set-based UPDATE, restricted to chambres not already in another bloc
+        Set<Long> numeros = new HashSet<>(numChambre);
+        int lignes = chambreRepository.affecterBloc(bloc, numeros);
+        // Check that each requested number matched exactly one chambre, the transaction rolls back otherwise
+        if (lignes != numeros.size()) {
+            throw new RuntimeException("Some chambres were not found or belong to another bloc");
         }
-        // Save all updated chambres
-        chambreRepository.saveAll(chambres);
+        List<Long> idChambres = chambreRepository.findIdsParBlocEtNumeros(idBloc, numeros);
+        topologieCache.evictChambresDesBlocs();
+        disponibiliteSnapshot.verifier(idChambres);
+        allocateurChambres.verifier(idChambres);
 
         return bloc;
     }
@@ -1,20 +1,27 @@
 package com.esprit.gestionfoyer.services;
 
+import com.esprit.gestionfoyer.dto.ChambreVueDTO;
+import com.esprit.gestionfoyer.dto.PageCurseurDTO;
 import com.esprit.gestionfoyer.entites.*;
 import com.esprit.gestionfoyer.repositories.ChambreRepository;
-import com.esprit.gestionfoyer.repositories.ReservationRepository;
 import com.esprit.gestionfoyer.repositories.UniversiteRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "gestionfoyer.service", histogram = true, percentiles = {0.5, 0.95, 0.99})
 public class ChambreServiceImpl implements IChambreService {
     @Autowired
     private ChambreRepository chambreRepository;
@@ -23,25 +30,81 @@ public class ChambreServiceImpl implements IChambreService {
     private UniversiteRepository universiteRepository;
 
     @Autowired
-    private ReservationRepository reservationRepository;
+    private OccupationChambreIndex occupationChambreIndex;
+
+    @Autowired
+    private TopologieCache topologieCache;
+
+    @Autowired
+    private ReessaiOptimiste reessaiOptimiste;
+
+    @Autowired
+    private OccupationChambreService occupationChambreService;
+
+    @Autowired
+    private DisponibiliteSnapshot disponibiliteSnapshot;
+
+    @Autowired
+    private AllocateurChambres allocateurChambres;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // When disabled (e.g. several nodes writing reservations), availability is computed in the database
+    @Value("${gestionfoyer.occupation.index.enabled:true}")
+    private boolean occupationIndexEnabled;
+
+    @Override
+    public List<ChambreVueDTO> retrieveAllChambres() {
+        return chambreRepository.findAllVues();
+    }
 
     @Override
-    public List<Chambre> retrieveAllChambres() {
-        return chambreRepository.findAll();
+    public PageCurseurDTO<ChambreVueDTO, Long> retrieveChambresPage(Long apres, Integer taille, TypeChambre typeC, Long idBloc) {
+        return PageCurseurDTO.of(chambreRepository.findPageVues(Pagination.apres(apres), typeC, idBloc, Pagination.limite(taille)),
+                ChambreVueDTO::getIdChambre);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exporterChambres(Consumer<ChambreVueDTO> consumer) {
+        // Projections are not managed: nothing accumulates in the persistence context while streaming
+        try (Stream<ChambreVueDTO> vues = chambreRepository.streamVues()) {
+            vues.forEach(consumer);
+        }
     }
 
     @Override
     public Chambre addChambre(Chambre c) {
-        return chambreRepository.save(c);
+        // The chambre and its occupancy rows in one transaction, so its first admissions only update them
+        Chambre savedChambre = new TransactionTemplate(transactionManager).execute(status -> {
+            Chambre chambre = chambreRepository.save(c);
+            occupationChambreService.creer(List.of(chambre.getIdChambre()));
+            return chambre;
+        });
+        topologieCache.evictChambresDesBlocs();
+        disponibiliteSnapshot.verifier(List.of(savedChambre.getIdChambre()));
+        allocateurChambres.verifier(List.of(savedChambre.getIdChambre()));
+        return savedChambre;
     }
 
     @Override
     public Chambre updateChambre(Chambre c) {
-        // Check if chambre exists before updating
-        if (chambreRepository.existsById(c.getIdChambre())) {
-            return chambreRepository.save(c);
-        }
-        throw new RuntimeException("Chambre not found with id: " + c.getIdChambre());
+        // 1. The version the client read the chambre at
+        long version = ReessaiOptimiste.versionExigee(c.getVersion(), "Chambre", c.getIdChambre());
+        reessaiOptimiste.executer(() -> {
+            // 2. Conditional update of the scalar fields
+            int lignes = chambreRepository.updateChamps(c.getIdChambre(), version, c.getNumeroChambre(), c.getTypeC());
+            ReessaiOptimiste.verifier(lignes, () -> chambreRepository.existsById(c.getIdChambre()), "Chambre", c.getIdChambre(), version);
+            // 3. Same transaction: a type too small for the students already in the chambre rolls the update back
+            occupationChambreService.resynchroniserCapacite(c.getIdChambre(), c.getTypeC());
+        });
+        // 4. Read back once committed: the bulk update invalidates the cached chambre on completion only
+        Chambre updatedChambre = retrieveChambre(c.getIdChambre());
+        topologieCache.evictChambresDesBlocs();
+        disponibiliteSnapshot.verifier(List.of(updatedChambre.getIdChambre()));
+        allocateurChambres.verifier(List.of(updatedChambre.getIdChambre()));
+        return updatedChambre;
     }
 
     @Override
@@ -50,106 +113,76 @@ public class ChambreServiceImpl implements IChambreService {
                 .orElseThrow(() -> new RuntimeException("Chambre not found with id: " + idChambre));
     }
 
+    @Override
+    public ChambreVueDTO retrieveChambreVue(long idChambre) {
+        return chambreRepository.findVueById(idChambre)
+                .orElseThrow(() -> new RuntimeException("Chambre not found with id: " + idChambre));
+    }
+
     @Override
     public void removeChambre(long idChambre) {
-        if (chambreRepository.existsById(idChambre)) {
+        // 1. The chambre and its occupancy rows go together: an admission racing the delete either lands
+        // before it, and the reservation blocks the delete, or after it, and fails on the missing chambre
+        reessaiOptimiste.executer(() -> {
+            if (!chambreRepository.existsById(idChambre)) {
+                throw new RuntimeException("Chambre not found with id: " + idChambre);
+            }
             chambreRepository.deleteById(idChambre);
-        } else {
-            throw new RuntimeException("Chambre not found with id: " + idChambre);
-        }
+            occupationChambreService.supprimer(idChambre);
+        });
+        // 2. Evicted once committed
+        topologieCache.evictChambresDesBlocs();
+        disponibiliteSnapshot.verifier(List.of(idChambre));
+        allocateurChambres.verifier(List.of(idChambre));
     }
 
     @Override
-    public List<Chambre> getChambresParNomUniversite(String nomUniversite) {
-        // 1. Find the university by name
-        // Use universiteRepository, not chambreRepository
-        Universite universite = universiteRepository.findByNomUniversite(nomUniversite).orElseThrow(() -> new RuntimeException("Universite not found with name: " + nomUniversite));
+    public List<ChambreVueDTO> getChambresParNomUniversite(String nomUniversite) {
+        // 1. Find the university by name (name -> id lookup and entities are served from cache)
+        Universite universite = topologieCache.getIdUniversite(nomUniversite)
+                .flatMap(universiteRepository::findById)
+                .orElseThrow(() -> new RuntimeException("Universite not found with name: " + nomUniversite));
         // 2. Check if university has a foyer
         if (universite.getFoyer() == null) {
             throw new RuntimeException("Universite " + nomUniversite + " doesn't have a foyer assigned");
         }
-        Foyer foyer = universite.getFoyer();
-        // 3. Check if foyer has blocs
-        if (foyer.getBlocs() == null || foyer.getBlocs().isEmpty()) {
-            return new ArrayList<>();
-        }
-        // 4. Collect all chambres from all blocs
-        List<Chambre> allChambres = new ArrayList<>();
-        for (Bloc bloc : foyer.getBlocs()) {
-            if (bloc.getChambres() != null && !bloc.getChambres().isEmpty()) {
-                allChambres.addAll(bloc.getChambres());
-            }
-        }
-
-        return allChambres;
+        // 3. Collect all chambres from all blocs of the foyer with a single projection query
+        return chambreRepository.findVuesParIdFoyer(universite.getFoyer().getIdFoyer());
     }
 
 
     @Override
-    public List<Chambre> getChambresParBlocEtType(long idBloc, TypeChambre typeC) {
-        return chambreRepository.findByBlocIdBlocAndTypeC(idBloc, typeC);
+    public List<ChambreVueDTO> getChambresParBlocEtType(long idBloc, TypeChambre typeC) {
+        return chambreRepository.findVuesParBlocEtType(idBloc, typeC);
     }
 
     @Override
-    public List<Chambre> getChambresNonReserveParNomUniversiteEtTypeChambre(
+    public List<ChambreVueDTO> getChambresNonReserveParNomUniversiteEtTypeChambre(
             String nomUniversite, TypeChambre type) {
 
-        // 1. Get current academic year dates (assuming academic year starts in September)
-        LocalDate currentYearStart = getCurrentAcademicYearStart();
-        LocalDate currentYearEnd = getCurrentAcademicYearEnd();
-
-        // 2. Get all chambres for this university and type
-        List<Chambre> allChambres = chambreRepository.findByBlocFoyerUniversiteNomUniversiteAndTypeC(nomUniversite, type);
-
-        // 3. Filter out chambres that have valid reservations in current year
-        List<Chambre> availableChambres = allChambres.stream().filter(chambre -> !hasValidReservationInCurrentYear(chambre, currentYearStart, currentYearEnd)).collect(Collectors.toList());
+        // 1. Get current academic year (assuming academic year starts in September)
+        int annee = AnneeUniversitaire.courante();
 
-        return availableChambres;
-    }
-    private boolean hasValidReservationInCurrentYear(Chambre chambre, LocalDate startDate, LocalDate endDate) {
-        List<Reservation> reservations = reservationRepository.findByChambreIdChambreAndEstValideTrueAndAnneeUniversitaireBetween(
-                chambre.getIdChambre(), startDate, endDate);
-        return !reservations.isEmpty();
-    }
-    private LocalDate getCurrentAcademicYearStart() {
-        // Academic year typically starts in September
-        int currentYear = LocalDate.now().getYear();
-        int currentMonth = LocalDate.now().getMonthValue();
-        // If we're after September, academic year started this year
-        // If we're before September, academic year started last year
-        if (currentMonth >= 9) {
-            return LocalDate.of(currentYear, 9, 1);
-        } else {
-            return LocalDate.of(currentYear - 1, 9, 1);
+        // 2. Get non-reserved chambres for this university and type
+        if (!occupationIndexEnabled) {
+            // Single query joined with the occupancy table
+            return chambreRepository.findVuesNonReserveesParNomUniversiteEtTypeC(nomUniversite, type, annee);
         }
-    }
-    private LocalDate getCurrentAcademicYearEnd() {
-        LocalDate start = getCurrentAcademicYearStart();
-        return start.plusYears(1).minusDays(1);
+        // Occupancy answered from the in-memory index, only the chambres are read from the database
+        return chambreRepository.findVuesParNomUniversiteEtTypeC(nomUniversite, type).stream()
+                .filter(chambre -> occupationChambreIndex.estLibre(chambre.getIdChambre(), annee))
+                .collect(Collectors.toList());
     }
 
     @Override
-    public Map<String, List<Chambre>> getChambresNonReservePourToutesUniversites() {
-
-        // 1. Get current academic year dates
-        LocalDate currentYearStart = getCurrentAcademicYearStart();
-        LocalDate currentYearEnd = getCurrentAcademicYearEnd();
-        // 2. Get all universities
-        List<Universite> allUniversites = universiteRepository.findAll();
-        // 3. For each university, get non-reserved chambres
-        Map<String, List<Chambre>> result = new HashMap<>();
-
-        for (Universite universite : allUniversites) {
-            // Get all chambres for this university
-            List<Chambre> allChambres = chambreRepository.findByBlocFoyerUniversiteNomUniversite(universite.getNomUniversite());
-            // Filter out reserved chambres
-            List<Chambre> availableChambres = allChambres.stream()
-                    .filter(chambre -> !hasValidReservationInCurrentYear(chambre, currentYearStart, currentYearEnd))
-                    .collect(Collectors.toList());
-            result.put(universite.getNomUniversite(), availableChambres);
-        }
+    public Map<String, List<ChambreVueDTO>> getChambresNonReservePourToutesUniversites() {
+        // Served from the precomputed snapshot, see DisponibiliteSnapshot
+        return disponibiliteSnapshot.getChambresLibres();
+    }
 
-        return result;
+    @Override
+    public Duration getAgeChambresNonReservePourToutesUniversites() {
+        return disponibiliteSnapshot.getAge();
     }
 
 }
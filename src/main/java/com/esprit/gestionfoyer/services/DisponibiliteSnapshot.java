@@ -0,0 +1,177 @@
+package com.esprit.gestionfoyer.services;
+
+import com.esprit.gestionfoyer.dto.ChambreVueDTO;
+import com.esprit.gestionfoyer.entites.TypeChambre;
+import com.esprit.gestionfoyer.repositories.ChambreRepository;
+import com.esprit.gestionfoyer.repositories.UniversiteRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Immutable map of the non-reserved chambres of every university, for the current academic year.
+ * Rebuilt from the occupancy table on a schedule and swapped atomically, so readers only dereference
+ * a pointer. Between two rebuilds, the chambres touched by reservations are re-checked in small
+ * batches after their commit and patched into a new copy of the map.
+ */
+@Component
+public class DisponibiliteSnapshot {
+
+    private static final Comparator<ChambreVueDTO> ORDRE = Comparator.comparing(ChambreVueDTO::getIdBloc)
+            .thenComparing(ChambreVueDTO::getNumeroChambre);
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+
+    @Autowired
+    private UniversiteRepository universiteRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicReference<Snapshot> courant = new AtomicReference<>();
+
+    // Chambres whose availability may have changed since the snapshot was built
+    private final ConcurrentLinkedQueue<Long> aVerifier = new ConcurrentLinkedQueue<>();
+
+    // Serializes the writers (rebuild and patches), readers never take it
+    private final ReentrantLock verrou = new ReentrantLock();
+
+    @PostConstruct
+    public void enregistrerAge() {
+        Gauge.builder("gestionfoyer.disponibilite.snapshot.age", this, snapshot -> snapshot.getAge().toMillis() / 1000.0)
+                .baseUnit("seconds")
+                .description("Time since the last full rebuild of the availability snapshot")
+                .register(meterRegistry);
+    }
+
+    public Map<String, List<ChambreVueDTO>> getChambresLibres() {
+        Snapshot snapshot = courant.get();
+        if (snapshot == null) {
+            reconstruire();
+            snapshot = courant.get();
+        }
+        return snapshot.chambresLibres();
+    }
+
+    public Duration getAge() {
+        Snapshot snapshot = courant.get();
+        return snapshot == null ? Duration.ZERO : Duration.between(snapshot.construitLe(), Instant.now());
+    }
+
+    // For writers outside the reservation flow (chambres created, moved or provisioned)
+    public void verifier(Collection<Long> idChambres) {
+        aVerifier.addAll(idChambres);
+    }
+
+    @TransactionalEventListener
+    public void onReservationAjoutee(ReservationAjouteeEvent event) {
+        aVerifier.add(event.idChambre());
+    }
+
+    @TransactionalEventListener
+    public void onReservationAnnulee(ReservationAnnuleeEvent event) {
+        aVerifier.add(event.idChambre());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${gestionfoyer.disponibilite.snapshot.rafraichissement-ms:30000}",
+            initialDelayString = "${gestionfoyer.disponibilite.snapshot.rafraichissement-ms:30000}")
+    public void reconstruire() {
+        verrou.lock();
+        try {
+            Instant debut = Instant.now();
+            // 1. Every university appears, even without free chambres
+            Map<String, List<ChambreVueDTO>> libres = new HashMap<>();
+            for (String nomUniversite : universiteRepository.findAllNomUniversite()) {
+                libres.put(nomUniversite, new ArrayList<>());
+            }
+            // 2. One query over the occupancy table for the free chambres
+            Map<Long, String> universiteParChambre = new HashMap<>();
+            for (Object[] ligne : chambreRepository.findVuesNonReserveesPourToutesUniversites(AnneeUniversitaire.courante())) {
+                ChambreVueDTO vue = vue(ligne);
+                libres.computeIfAbsent((String) ligne[0], nom -> new ArrayList<>()).add(vue);
+                universiteParChambre.put(vue.getIdChambre(), (String) ligne[0]);
+            }
+            libres.replaceAll((nom, vues) -> List.copyOf(vues));
+            courant.set(new Snapshot(Map.copyOf(libres), universiteParChambre, debut));
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${gestionfoyer.disponibilite.snapshot.application-ms:1000}")
+    public void appliquer() {
+        Set<Long> idChambres = new HashSet<>();
+        for (Long idChambre = aVerifier.poll(); idChambre != null; idChambre = aVerifier.poll()) {
+            idChambres.add(idChambre);
+        }
+        Snapshot snapshot = courant.get();
+        if (idChambres.isEmpty() || snapshot == null) {
+            return;
+        }
+        verrou.lock();
+        try {
+            snapshot = courant.get();
+            // 1. Drop the re-checked chambres from a copy of the lists they were in
+            Map<Long, String> universiteParChambre = new HashMap<>(snapshot.universiteParChambre());
+            Map<String, List<ChambreVueDTO>> modifiees = new HashMap<>();
+            for (Long idChambre : idChambres) {
+                String nomUniversite = universiteParChambre.remove(idChambre);
+                if (nomUniversite != null) {
+                    copie(snapshot, modifiees, nomUniversite).removeIf(vue -> vue.getIdChambre().equals(idChambre));
+                }
+            }
+            // 2. Add back those still free, in one query
+            for (Object[] ligne : chambreRepository.findVuesNonReserveesIn(AnneeUniversitaire.courante(), idChambres)) {
+                ChambreVueDTO vue = vue(ligne);
+                copie(snapshot, modifiees, (String) ligne[0]).add(vue);
+                universiteParChambre.put(vue.getIdChambre(), (String) ligne[0]);
+            }
+            // 3. Swap in a new map sharing the untouched lists
+            Map<String, List<ChambreVueDTO>> libres = new HashMap<>(snapshot.chambresLibres());
+            modifiees.forEach((nom, vues) -> {
+                vues.sort(ORDRE);
+                libres.put(nom, List.copyOf(vues));
+            });
+            courant.set(new Snapshot(Map.copyOf(libres), universiteParChambre, snapshot.construitLe()));
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    private List<ChambreVueDTO> copie(Snapshot snapshot, Map<String, List<ChambreVueDTO>> modifiees, String nomUniversite) {
+        return modifiees.computeIfAbsent(nomUniversite,
+                nom -> new ArrayList<>(snapshot.chambresLibres().getOrDefault(nom, List.of())));
+    }
+
+    // [nomUniversite, idChambre, numeroChambre, typeC, idBloc, nomBloc, version]
+    private ChambreVueDTO vue(Object[] ligne) {
+        return new ChambreVueDTO((Long) ligne[1], (Long) ligne[2], (TypeChambre) ligne[3], (Long) ligne[4], (String) ligne[5],
+                (Long) ligne[6]);
+    }
+
+    private record Snapshot(Map<String, List<ChambreVueDTO>> chambresLibres, Map<Long, String> universiteParChambre,
+                            Instant construitLe) {
+    }
+}
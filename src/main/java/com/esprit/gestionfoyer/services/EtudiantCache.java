@@ -0,0 +1,43 @@
+package com.esprit.gestionfoyer.services;
+
+import com.esprit.gestionfoyer.repositories.EtudiantRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+
+/**
+ * Bounded CIN -> idEtudiant lookup used by the reservation hot paths.
+ * Backed by Caffeine (size-bounded, W-TinyLFU eviction); unknown CINs are not cached so students
+ * created later are found at once. Entries are evicted when a student is removed, and after the
+ * commit of an update.
+ */
+@Component
+public class EtudiantCache {
+
+    public static final String ETUDIANT_ID_PAR_CIN = "etudiantIdParCin";
+
+    @Autowired
+    private EtudiantRepository etudiantRepository;
+
+    @Cacheable(cacheNames = ETUDIANT_ID_PAR_CIN, unless = "#result == null")
+    public Optional<Long> getIdEtudiant(Long cin) {
+        return etudiantRepository.findIdByCin(cin);
+    }
+
+    @CacheEvict(cacheNames = ETUDIANT_ID_PAR_CIN)
+    public void evict(Long cin) {
+        // eviction handled by the annotation
+    }
+
+    // After the commit only: evicted earlier, a concurrent lookup could cache the previous CIN again
+    // from the row not yet updated
+    @TransactionalEventListener
+    @CacheEvict(cacheNames = ETUDIANT_ID_PAR_CIN, key = "#event.ancienCin()")
+    public void onEtudiantModifie(EtudiantModifieEvent event) {
+        // eviction handled by the annotation
+    }
+}
@@ -0,0 +1,5 @@
+package com.esprit.gestionfoyer.services;
+
+// Published by updateEtudiant with the CIN the student had before the update
+public record EtudiantModifieEvent(Long ancienCin) {
+}
@@ -1,12 +1,32 @@
 package com.esprit.gestionfoyer.services;
 
+import com.esprit.gestionfoyer.dto.EtudiantVueDTO;
+import com.esprit.gestionfoyer.dto.ImportLotDTO;
+import com.esprit.gestionfoyer.dto.ImportRapportDTO;
+import com.esprit.gestionfoyer.dto.PageCurseurDTO;
 import com.esprit.gestionfoyer.entites.Etudiant;
 import com.esprit.gestionfoyer.repositories.EtudiantRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
 public class EtudiantServiceImpl implements IEtudiantService{
 
@@ -14,9 +34,41 @@ public class EtudiantServiceImpl implements IEtudiantService{
     @Autowired
     private EtudiantRepository etudiantRepository;
 
+    @Autowired
+    private EtudiantCache etudiantCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReessaiOptimiste reessaiOptimiste;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${gestionfoyer.import.etudiants.taille-lot:1000}")
+    private int tailleLot;
+
+    @Override
+    public List<EtudiantVueDTO> retrieveAllEtudiants() {
+        return etudiantRepository.findAllVues();
+    }
+
     @Override
-    public List<Etudiant> retrieveAllEtudiants() {
-        return etudiantRepository.findAll();
+    public PageCurseurDTO<EtudiantVueDTO, Long> retrieveEtudiantsPage(Long apres, Integer taille, String ecole) {
+        return PageCurseurDTO.of(etudiantRepository.findPageVues(Pagination.apres(apres), ecole, Pagination.limite(taille)),
+                EtudiantVueDTO::getIdEtudiant);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exporterEtudiants(Consumer<EtudiantVueDTO> consumer) {
+        try (Stream<EtudiantVueDTO> vues = etudiantRepository.streamVues()) {
+            vues.forEach(consumer);
+        }
     }
 
     @Override
@@ -27,12 +79,97 @@ public class EtudiantServiceImpl implements IEtudiantService{
     }
 
     @Override
-    public Etudiant updateEtudiant(Etudiant e) {
-        // Check if student exists before updating
-        if (etudiantRepository.existsById(e.getIdEtudiant())) {
-            return etudiantRepository.save(e);
+    public ImportRapportDTO importerEtudiants(Iterator<Etudiant> etudiants) {
+        ImportRapportDTO rapport = new ImportRapportDTO();
+        // CINs of the chunks committed so far in this import
+        Set<Long> cinsVus = new HashSet<>();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        long debut = System.nanoTime();
+        // 1. Read the source chunk by chunk, each chunk is committed on its own
+        while (etudiants.hasNext()) {
+            List<Etudiant> lot = new ArrayList<>(tailleLot);
+            while (etudiants.hasNext() && lot.size() < tailleLot) {
+                lot.add(etudiants.next());
+            }
+            int numeroLot = rapport.getLots().size() + 1;
+            Set<Long> cinsLot = new HashSet<>();
+            ImportLotDTO resultat;
+            try {
+                resultat = transaction.execute(status -> importerLot(lot, cinsVus, cinsLot, numeroLot));
+                // The CINs of a chunk only count as seen once it is committed: a rolled back chunk stored none
+                cinsVus.addAll(cinsLot);
+            } catch (RuntimeException e) {
+                // A failed chunk is rolled back as a whole, the import goes on with the next one
+                log.warn("Import lot {} rolled back: {}", numeroLot, e.getMessage());
+                resultat = new ImportLotDTO();
+                resultat.setNumeroLot(numeroLot);
+                resultat.setLus(lot.size());
+                resultat.setEchecs(lot.size());
+                resultat.setErreur(e.getMessage());
+            }
+            rapport.ajouter(resultat);
+            log.debug("Import lot {}: {} inserted, {} rejected in {} ms", resultat.getNumeroLot(), resultat.getInseres(),
+                    resultat.getLus() - resultat.getInseres(), resultat.getDureeMs());
+        }
+        rapport.setDureeMs((System.nanoTime() - debut) / 1_000_000);
+        return rapport;
+    }
+
+    // Fills cinsLot with the CINs this chunk accepts, for the caller to add to cinsVus after the commit
+    private ImportLotDTO importerLot(List<Etudiant> lot, Set<Long> cinsVus, Set<Long> cinsLot, int numeroLot) {
+        long debut = System.nanoTime();
+        ImportLotDTO resultat = new ImportLotDTO();
+        resultat.setNumeroLot(numeroLot);
+        resultat.setLus(lot.size());
+        // 2. Reject unreadable lines and CINs repeated within the import
+        List<Etudiant> candidats = new ArrayList<>();
+        for (Etudiant etudiant : lot) {
+            if (etudiant == null || etudiant.getCin() == null) {
+                resultat.setInvalides(resultat.getInvalides() + 1);
+            } else if (cinsVus.contains(etudiant.getCin()) || !cinsLot.add(etudiant.getCin())) {
+                resultat.setDoublons(resultat.getDoublons() + 1);
+            } else {
+                candidats.add(etudiant);
+            }
+        }
+        // 3. Reject CINs already stored, with one IN query per chunk
+        if (!candidats.isEmpty()) {
+            Set<Long> existants = new HashSet<>(etudiantRepository.findCinsExistants(
+                    candidats.stream().map(Etudiant::getCin).collect(Collectors.toList())));
+            resultat.setExistants((int) candidats.stream().filter(etudiant -> existants.contains(etudiant.getCin())).count());
+            candidats.removeIf(etudiant -> existants.contains(etudiant.getCin()));
         }
-        throw new RuntimeException("Etudiant not found with id: " + e.getIdEtudiant());
+        // 4. Insert with a JDBC batch: IDENTITY ids keep Hibernate from batching, plain JDBC does not
+        jdbcTemplate.batchUpdate("INSERT INTO etudiant (nom_et, prenom_et, cin, ecole, date_naissance, version) VALUES (?, ?, ?, ?, ?, 0)",
+                candidats, tailleLot, (statement, etudiant) -> {
+                    statement.setString(1, etudiant.getNomEt());
+                    statement.setString(2, etudiant.getPrenomEt());
+                    statement.setLong(3, etudiant.getCin());
+                    statement.setString(4, etudiant.getEcole());
+                    statement.setDate(5, etudiant.getDateNaissance() == null ? null : Date.valueOf(etudiant.getDateNaissance()));
+                });
+        resultat.setInseres(candidats.size());
+        long dureeNs = System.nanoTime() - debut;
+        resultat.setDureeMs(dureeNs / 1_000_000);
+        resultat.setLignesParSeconde(dureeNs == 0 ? 0 : lot.size() * 1e9 / dureeNs);
+        return resultat;
+    }
+
+    @Override
+    public Etudiant updateEtudiant(Etudiant e) {
+        long version = ReessaiOptimiste.versionExigee(e.getVersion(), "Etudiant", e.getIdEtudiant());
+        return reessaiOptimiste.executer(() -> {
+            // 1. Read the current row: its CIN for the cache
+            Etudiant existant = retrieveEtudiant(e.getIdEtudiant());
+            // 2. Conditional update of the scalar fields, a concurrent edit in between makes it touch no row
+            int lignes = etudiantRepository.updateChamps(e.getIdEtudiant(), version, e.getNomEt(), e.getPrenomEt(),
+                    e.getCin(), e.getEcole(), e.getDateNaissance());
+            ReessaiOptimiste.verifier(lignes, () -> etudiantRepository.existsById(e.getIdEtudiant()), "Etudiant",
+                    e.getIdEtudiant(), version);
+            // 3. The CIN may change: drop the cached lookup of the previous one once this attempt commits
+            eventPublisher.publishEvent(new EtudiantModifieEvent(existant.getCin()));
+            return retrieveEtudiant(e.getIdEtudiant());
+        });
     }
 
     @Override
@@ -41,12 +178,17 @@ public class EtudiantServiceImpl implements IEtudiantService{
                 .orElseThrow(() -> new RuntimeException("Etudiant not found with id: " + idEtudiant));
     }
 
+    @Override
+    public EtudiantVueDTO retrieveEtudiantVue(long idEtudiant) {
+        return etudiantRepository.findVueById(idEtudiant)
+                .orElseThrow(() -> new RuntimeException("Etudiant not found with id: " + idEtudiant));
+    }
+
     @Override
     public void removeEtudiant(long idEtudiant) {
-        if (etudiantRepository.existsById(idEtudiant)) {
-            etudiantRepository.deleteById(idEtudiant);
-        } else {
-            throw new RuntimeException("Etudiant not found with id: " + idEtudiant);
-        }
+        Etudiant etudiant = etudiantRepository.findById(idEtudiant)
+                .orElseThrow(() -> new RuntimeException("Etudiant not found with id: " + idEtudiant));
+        etudiantRepository.delete(etudiant);
+        etudiantCache.evict(etudiant.getCin());
     }
 }
@@ -1,17 +1,33 @@
 package com.esprit.gestionfoyer.services;
 
+import com.esprit.gestionfoyer.dto.FoyerVueDTO;
+import com.esprit.gestionfoyer.dto.PageCurseurDTO;
+import com.esprit.gestionfoyer.dto.ProvisionnementBlocDTO;
+import com.esprit.gestionfoyer.dto.ProvisionnementFoyerDTO;
+import com.esprit.gestionfoyer.dto.ProvisionnementRapportDTO;
 import com.esprit.gestionfoyer.entites.Bloc;
 import com.esprit.gestionfoyer.entites.Foyer;
 import com.esprit.gestionfoyer.entites.Universite;
 import com.esprit.gestionfoyer.repositories.BlocRepository;
+import com.esprit.gestionfoyer.repositories.ChambreRepository;
 import com.esprit.gestionfoyer.repositories.FoyerRepository;
 import com.esprit.gestionfoyer.repositories.UniversiteRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StopWatch;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+@Slf4j
 @Service
 public class FoyerServiceImpl implements IFoyerService{
     @Autowired
@@ -23,23 +39,63 @@ public class FoyerServiceImpl implements IFoyerService{
     @Autowired
     private UniversiteRepository universiteRepository;
 
+    @Autowired
+    private TopologieCache topologieCache;
+
+    @Autowired
+    private ReessaiOptimiste reessaiOptimiste;
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+
+    @Autowired
+    private DisponibiliteSnapshot disponibiliteSnapshot;
+
+    @Autowired
+    private AllocateurChambres allocateurChambres;
+
+    @Autowired
+    private OccupationChambreService occupationChambreService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Override
+    public List<FoyerVueDTO> retrieveAllFoyers() {
+        return foyerRepository.findAllVues();
+    }
+
     @Override
-    public List<Foyer> retrieveAllFoyers() {
-        return foyerRepository.findAll();
+    public PageCurseurDTO<FoyerVueDTO, Long> retrieveFoyersPage(Long apres, Integer taille) {
+        return PageCurseurDTO.of(foyerRepository.findPageVues(Pagination.apres(apres), Pagination.limite(taille)),
+                FoyerVueDTO::getIdFoyer);
     }
 
     @Override
     public Foyer addFoyer(Foyer f) {
-        return foyerRepository.save(f);
+        Foyer savedFoyer = foyerRepository.save(f);
+        topologieCache.evictBlocsDesFoyers();
+        return savedFoyer;
     }
 
     @Override
     public Foyer updateFoyer(Foyer f) {
-        // Check if foyer exists before updating
-        if (foyerRepository.existsById(f.getIdFoyer())) {
-            return foyerRepository.save(f);
-        }
-        throw new RuntimeException("Foyer not found with id: " + f.getIdFoyer());
+        // 1. The version the client read the foyer at
+        long version = ReessaiOptimiste.versionExigee(f.getVersion(), "Foyer", f.getIdFoyer());
+        reessaiOptimiste.executer(() -> {
+            // 2. Conditional update of the scalar fields
+            int lignes = foyerRepository.updateChamps(f.getIdFoyer(), version, f.getNomFoyer(), f.getCapaciteFoyer());
+            ReessaiOptimiste.verifier(lignes, () -> foyerRepository.existsById(f.getIdFoyer()), "Foyer", f.getIdFoyer(), version);
+        });
+        // 3. Evicted and read back once committed
+        topologieCache.evictBlocsDesFoyers();
+        return retrieveFoyer(f.getIdFoyer());
     }
 
     @Override
@@ -48,10 +104,17 @@ public class FoyerServiceImpl implements IFoyerService{
                 .orElseThrow(() -> new RuntimeException("Foyer not found with id: " + idFoyer));
     }
 
+    @Override
+    public FoyerVueDTO retrieveFoyerVue(long idFoyer) {
+        return foyerRepository.findVueById(idFoyer)
+                .orElseThrow(() -> new RuntimeException("Foyer not found with id: " + idFoyer));
+    }
+
     @Override
     public void removeFoyer(long idFoyer) {
         if (foyerRepository.existsById(idFoyer)) {
             foyerRepository.deleteById(idFoyer);
+            topologieCache.evictBlocsDesFoyers();
         } else {
             throw new RuntimeException("Foyer not found with id: " + idFoyer);
         }
@@ -76,8 +139,103 @@ public class FoyerServiceImpl implements IFoyerService{
         // 5. Assign the foyer to the university
         universite.setFoyer(savedFoyer);
         universiteRepository.save(universite);
+        savedFoyer.setUniversite(universite);
+        topologieCache.evictBlocsDesFoyers();
         return savedFoyer;
     }
 
+    @Override
+    public ProvisionnementRapportDTO provisionnerFoyer(ProvisionnementFoyerDTO demande) {
+        StopWatch chrono = new StopWatch("provisionnement");
+        // 1-6. The whole tree in one transaction: any failing stage leaves nothing behind
+        ProvisionnementRapportDTO rapport = new TransactionTemplate(transactionManager)
+                .execute(status -> provisionner(demande, chrono));
+        // 7. Once committed, drop the cached collections and let the availability views re-read the new chambres
+        chrono.start("caches");
+        topologieCache.evictBlocsDesFoyers();
+        topologieCache.evictChambresDesBlocs();
+        List<Long> idChambres = chambreRepository.findIdsParFoyer(rapport.getIdFoyer());
+        disponibiliteSnapshot.verifier(idChambres);
+        allocateurChambres.verifier(idChambres);
+        chrono.stop();
+        for (StopWatch.TaskInfo etape : chrono.getTaskInfo()) {
+            rapport.getEtapesMs().put(etape.getTaskName(), etape.getTimeMillis());
+        }
+        rapport.setDureeMs(chrono.getTotalTimeMillis());
+        log.info("Foyer {} provisioned: {} blocs, {} chambres created, {} attached in {} ms {}", rapport.getIdFoyer(),
+                rapport.getBlocs(), rapport.getChambresCreees(), rapport.getChambresAffectees(), rapport.getDureeMs(),
+                rapport.getEtapesMs());
+        return rapport;
+    }
 
+    private ProvisionnementRapportDTO provisionner(ProvisionnementFoyerDTO demande, StopWatch chrono) {
+        ProvisionnementRapportDTO rapport = new ProvisionnementRapportDTO();
+        // 1. Find the university, it must not have a foyer yet
+        chrono.start("universite");
+        Universite universite = universiteRepository.findById(demande.getIdUniversite())
+                .orElseThrow(() -> new RuntimeException("Universite not found with id: " + demande.getIdUniversite()));
+        if (universite.getFoyer() != null) {
+            throw new RuntimeException("Universite already has a foyer assigned");
+        }
+        chrono.stop();
+        // 2. Save the foyer and assign it to the university
+        chrono.start("foyer");
+        Foyer foyer = new Foyer();
+        foyer.setNomFoyer(demande.getNomFoyer());
+        foyer.setCapaciteFoyer(demande.getCapaciteFoyer());
+        Foyer savedFoyer = foyerRepository.save(foyer);
+        universite.setFoyer(savedFoyer);
+        rapport.setIdFoyer(savedFoyer.getIdFoyer());
+        chrono.stop();
+        // 3. Save the blocs through JPA: their generated ids are needed for the chambres
+        chrono.start("blocs");
+        List<Bloc> blocs = new ArrayList<>();
+        for (ProvisionnementBlocDTO demandeBloc : demande.getBlocs()) {
+            Bloc bloc = new Bloc();
+            bloc.setNomBloc(demandeBloc.getNomBloc());
+            bloc.setCapaciteBloc(demandeBloc.getCapaciteBloc());
+            bloc.setFoyer(savedFoyer);
+            blocs.add(bloc);
+        }
+        blocs = blocRepository.saveAll(blocs);
+        rapport.setBlocs(blocs.size());
+        chrono.stop();
+        // 4. Insert the new chambres with a JDBC batch: IDENTITY ids keep Hibernate from batching, plain JDBC does not
+        chrono.start("chambres");
+        List<Object[]> chambres = new ArrayList<>();
+        for (int i = 0; i < blocs.size(); i++) {
+            Long idBloc = blocs.get(i).getIdBloc();
+            demande.getBlocs().get(i).getChambres().forEach((typeC, numeros) -> {
+                for (Long numero : numeros) {
+                    chambres.add(new Object[]{numero, typeC.name(), idBloc});
+                }
+            });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO chambre (numero_chambre, typec, bloc_id, version) VALUES (?, ?, ?, 0)",
+                chambres, batchSize, (statement, chambre) -> {
+                    statement.setLong(1, (Long) chambre[0]);
+                    statement.setString(2, (String) chambre[1]);
+                    statement.setLong(3, (Long) chambre[2]);
+                });
+        rapport.setChambresCreees(chambres.size());
+        chrono.stop();
+        // 5. Attach the existing chambres with one set-based UPDATE per bloc
+        chrono.start("affectation");
+        for (int i = 0; i < blocs.size(); i++) {
+            Set<Long> idChambres = new HashSet<>(demande.getBlocs().get(i).getIdChambresExistantes());
+            if (idChambres.isEmpty()) {
+                continue;
+            }
+            if (chambreRepository.affecterBlocParIds(blocs.get(i), idChambres) != idChambres.size()) {
+                throw new RuntimeException("Some chambres of bloc " + blocs.get(i).getNomBloc() + " were not found or belong to another bloc");
+            }
+            rapport.setChambresAffectees(rapport.getChambresAffectees() + idChambres.size());
+        }
+        chrono.stop();
+        // 6. Occupancy rows of the chambres, so their first admissions only update them
+        chrono.start("occupation");
+        occupationChambreService.creer(chambreRepository.findIdsParFoyer(savedFoyer.getIdFoyer()));
+        chrono.stop();
+        return rapport;
+    }
 }
@@ -1,14 +1,18 @@
 package com.esprit.gestionfoyer.services;
 
+import com.esprit.gestionfoyer.dto.BlocVueDTO;
+import com.esprit.gestionfoyer.dto.PageCurseurDTO;
 import com.esprit.gestionfoyer.entites.Bloc;
 
 import java.util.List;
 
 public interface IBlocService {
-    List<Bloc> retrieveAllBlocs();
+    List<BlocVueDTO> retrieveAllBlocs();
+    PageCurseurDTO<BlocVueDTO, Long> retrieveBlocsPage(Long apres, Integer taille, Long idFoyer);
     Bloc addBloc(Bloc bloc);
     Bloc updateBloc(Bloc bloc);
     Bloc retrieveBloc(long idBloc);
+    BlocVueDTO retrieveBlocVue(long idBloc);
     void removeBloc(long idBloc);
 
 
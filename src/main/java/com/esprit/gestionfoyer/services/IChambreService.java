@@ -1,20 +1,28 @@
 package com.esprit.gestionfoyer.services;
 
+import com.esprit.gestionfoyer.dto.ChambreVueDTO;
+import com.esprit.gestionfoyer.dto.PageCurseurDTO;
 import com.esprit.gestionfoyer.entites.Chambre;
 import com.esprit.gestionfoyer.entites.TypeChambre;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface IChambreService {
-    List<Chambre> retrieveAllChambres();
+    List<ChambreVueDTO> retrieveAllChambres();
+    PageCurseurDTO<ChambreVueDTO, Long> retrieveChambresPage(Long apres, Integer taille, TypeChambre typeC, Long idBloc);
+    void exporterChambres(Consumer<ChambreVueDTO> consumer);
     Chambre addChambre(Chambre c);
     Chambre updateChambre(Chambre c);
     Chambre retrieveChambre(long idChambre);
+    ChambreVueDTO retrieveChambreVue(long idChambre);
     void removeChambre(long idChambre);
 
-    List<Chambre> getChambresParNomUniversite(String nomUniversite);
-    List<Chambre> getChambresParBlocEtType(long idBloc, TypeChambre typeC);
-    List<Chambre> getChambresNonReserveParNomUniversiteEtTypeChambre(String nomUniversite, TypeChambre type);
-    Map<String, List<Chambre>> getChambresNonReservePourToutesUniversites();
+    List<ChambreVueDTO> getChambresParNomUniversite(String nomUniversite);
+    List<ChambreVueDTO> getChambresParBlocEtType(long idBloc, TypeChambre typeC);
+    List<ChambreVueDTO> getChambresNonReserveParNomUniversiteEtTypeChambre(String nomUniversite, TypeChambre type);
+    Map<String, List<ChambreVueDTO>> getChambresNonReservePourToutesUniversites();
+    Duration getAgeChambresNonReservePourToutesUniversites();
 }
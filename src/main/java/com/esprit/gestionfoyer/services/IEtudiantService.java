@@ -1,13 +1,22 @@
 package com.esprit.gestionfoyer.services;
 
+import com.esprit.gestionfoyer.dto.EtudiantVueDTO;
+import com.esprit.gestionfoyer.dto.ImportRapportDTO;
+import com.esprit.gestionfoyer.dto.PageCurseurDTO;
 import com.esprit.gestionfoyer.entites.Etudiant;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface IEtudiantService {
-    List<Etudiant> retrieveAllEtudiants();
+    List<EtudiantVueDTO> retrieveAllEtudiants();
+    PageCurseurDTO<EtudiantVueDTO, Long> retrieveEtudiantsPage(Long apres, Integer taille, String ecole);
+    void exporterEtudiants(Consumer<EtudiantVueDTO> consumer);
     List<Etudiant> addEtudiants(List<Etudiant> etudiants);
+    ImportRapportDTO importerEtudiants(Iterator<Etudiant> etudiants);
     Etudiant updateEtudiant(Etudiant e);
     Etudiant retrieveEtudiant(long idEtudiant);
+    EtudiantVueDTO retrieveEtudiantVue(long idEtudiant);
     void removeEtudiant(long idEtudiant);
 }
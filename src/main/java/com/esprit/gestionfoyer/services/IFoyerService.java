@@ -1,15 +1,22 @@
 package com.esprit.gestionfoyer.services;
 
+import com.esprit.gestionfoyer.dto.FoyerVueDTO;
+import com.esprit.gestionfoyer.dto.PageCurseurDTO;
+import com.esprit.gestionfoyer.dto.ProvisionnementFoyerDTO;
+import com.esprit.gestionfoyer.dto.ProvisionnementRapportDTO;
 import com.esprit.gestionfoyer.entites.Foyer;
 
 import java.util.List;
 
 public interface IFoyerService {
-    List<Foyer> retrieveAllFoyers();
+    List<FoyerVueDTO> retrieveAllFoyers();
+    PageCurseurDTO<FoyerVueDTO, Long> retrieveFoyersPage(Long apres, Integer taille);
     Foyer addFoyer(Foyer f);
     Foyer updateFoyer(Foyer f);
     Foyer retrieveFoyer(long idFoyer);
+    FoyerVueDTO retrieveFoyerVue(long idFoyer);
     void removeFoyer(long idFoyer);
 
     Foyer ajouterFoyerEtAffecterAUniversite(Foyer foyer, long idUniversite);
+    ProvisionnementRapportDTO provisionnerFoyer(ProvisionnementFoyerDTO demande);
 }
@@ -0,0 +1,13 @@
+package com.esprit.gestionfoyer.services;
+
+import com.esprit.gestionfoyer.dto.AttenteReservationVueDTO;
+import com.esprit.gestionfoyer.entites.AttenteReservation;
+import com.esprit.gestionfoyer.entites.TypeChambre;
+
+import java.util.List;
+
+public interface IListeAttenteService {
+    AttenteReservation inscrire(long cinEtudiant, String nomUniversite, TypeChambre typeC);
+    List<AttenteReservationVueDTO> retrieveAttenteVuesParCin(long cinEtudiant);
+    long getPosition(long idAttente);
+}
@@ -1,16 +1,31 @@
 package com.esprit.gestionfoyer.services;
 
+import com.esprit.gestionfoyer.dto.AjouterReservationDTO;
+import com.esprit.gestionfoyer.dto.ChangementsReservationDTO;
+import com.esprit.gestionfoyer.dto.ReservationResultatDTO;
+import com.esprit.gestionfoyer.dto.PageCurseurDTO;
+import com.esprit.gestionfoyer.dto.ReservationVueDTO;
+import com.esprit.gestionfoyer.dto.StatistiqueOccupationDTO;
 import com.esprit.gestionfoyer.entites.Reservation;
+import com.esprit.gestionfoyer.entites.TypeChambre;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface IReservationService {
-    List<Reservation> retrieveAllReservation();
+    List<ReservationVueDTO> retrieveAllReservation();
+    PageCurseurDTO<ReservationVueDTO, String> retrieveReservationsPage(String apres, Integer taille, Boolean estValide, Long idChambre);
+    void exporterReservations(Consumer<ReservationVueDTO> consumer);
+    ChangementsReservationDTO retrieveChangements(Long depuis, Integer taille);
     Reservation updateReservation(Reservation res);
     Reservation retrieveReservation(String idReservation);
+    ReservationVueDTO retrieveReservationVue(String idReservation);
 
     Reservation ajouterReservation(long idChambre, long cinEtudiant);
+    Reservation allouerChambre(long cinEtudiant, String nomUniversite, TypeChambre typeC);
+    List<ReservationResultatDTO> ajouterReservations(List<AjouterReservationDTO> demandes);
     Reservation annulerReservation(long cinEtudiant);
-    List<Reservation> getReservationParAnneeUniversitaireEtNomUniversite(LocalDate anneeUniversite, String nomUniversite);
+    List<ReservationVueDTO> getReservationParAnneeUniversitaireEtNomUniversite(LocalDate anneeUniversite, String nomUniversite);
+    List<StatistiqueOccupationDTO> getStatistiquesOccupation(int anneeDebut, int anneeFin, String nomUniversite);
 }
@@ -1,14 +1,18 @@
 package com.esprit.gestionfoyer.services;
 
+import com.esprit.gestionfoyer.dto.PageCurseurDTO;
+import com.esprit.gestionfoyer.dto.UniversiteVueDTO;
 import com.esprit.gestionfoyer.entites.Universite;
 
 import java.util.List;
 
 public interface IUniversiteService {
-    List<Universite> retrieveAllUniversities();
+    List<UniversiteVueDTO> retrieveAllUniversities();
+    PageCurseurDTO<UniversiteVueDTO, Long> retrieveUniversitesPage(Long apres, Integer taille);
     Universite addUniversite(Universite u);
     Universite updateUniversite(Universite u);
     Universite retrieveUniversite(long idUniversite);
+    UniversiteVueDTO retrieveUniversiteVue(long idUniversite);
 
     // Advanced service method
     Universite affecterFoyerAUniversite(long idFoyer, String nomUniversite);
@@ -0,0 +1,68 @@
+package com.esprit.gestionfoyer.services;
+
+import com.esprit.gestionfoyer.dto.AttenteReservationVueDTO;
+import com.esprit.gestionfoyer.entites.AttenteReservation;
+import com.esprit.gestionfoyer.entites.TypeChambre;
+import com.esprit.gestionfoyer.repositories.AttenteReservationRepository;
+import com.esprit.gestionfoyer.repositories.ReservationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+public class ListeAttenteServiceImpl implements IListeAttenteService {
+
+    @Autowired
+    private AttenteReservationRepository attenteReservationRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private EtudiantCache etudiantCache;
+
+    @Autowired
+    private TopologieCache topologieCache;
+
+    @Override
+    @Transactional
+    public AttenteReservation inscrire(long cinEtudiant, String nomUniversite, TypeChambre typeC) {
+        // 1. Find the student and the university
+        Long idEtudiant = etudiantCache.getIdEtudiant(cinEtudiant)
+                .orElseThrow(() -> new RuntimeException("Etudiant not found with CIN: " + cinEtudiant));
+        Long idUniversite = topologieCache.getIdUniversite(nomUniversite)
+                .orElseThrow(() -> new RuntimeException("Universite not found with name: " + nomUniversite));
+        // 2. A student waits in one list at a time, and only without a valid reservation
+        if (attenteReservationRepository.existsByCinEtudiantAndIdReservationIsNullAndDateClotureIsNull(cinEtudiant)) {
+            throw new RuntimeException("Etudiant with CIN " + cinEtudiant + " is already on a waiting list");
+        }
+        if (reservationRepository.findFirstByEtudiantsIdEtudiantAndEstValideTrueOrderByAnneeUniversitaireDesc(idEtudiant).isPresent()) {
+            throw new RuntimeException("Etudiant with CIN " + cinEtudiant + " already has a valid reservation");
+        }
+        // 3. Join the end of the list of (university, type)
+        AttenteReservation attente = new AttenteReservation();
+        attente.setCinEtudiant(cinEtudiant);
+        attente.setIdUniversite(idUniversite);
+        attente.setTypeC(typeC);
+        attente.setDateDemande(LocalDateTime.now());
+        return attenteReservationRepository.save(attente);
+    }
+
+    @Override
+    public List<AttenteReservationVueDTO> retrieveAttenteVuesParCin(long cinEtudiant) {
+        return attenteReservationRepository.findVuesParCinEtudiant(cinEtudiant);
+    }
+
+    @Override
+    public long getPosition(long idAttente) {
+        AttenteReservation attente = attenteReservationRepository.findById(idAttente)
+                .orElseThrow(() -> new RuntimeException("AttenteReservation not found with id: " + idAttente));
+        if (attente.getIdReservation() != null || attente.getDateCloture() != null) {
+            return 0;
+        }
+        return attenteReservationRepository.countDevant(attente.getIdUniversite(), attente.getTypeC(), idAttente) + 1;
+    }
+}
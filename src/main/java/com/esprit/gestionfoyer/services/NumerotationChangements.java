@@ -0,0 +1,120 @@
+package com.esprit.gestionfoyer.services;
+
+import com.esprit.gestionfoyer.entites.CompteurSequence;
+import com.esprit.gestionfoyer.repositories.CompteurSequenceRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Gives the reservation changes of a transaction their feed sequence just before it commits.
+ * The counter row stays locked from the numbering to the commit, so transactions commit in the
+ * order of their sequences: a consumer that has read a sequence has seen every smaller one, and
+ * the feed never has a hole to wait for. The price is that writers of changes commit one at a time.
+ */
+@Slf4j
+@Component
+public class NumerotationChangements {
+
+    private static final String SEQUENCE = "changement";
+
+    @Autowired
+    private CompteurSequenceRepository compteurSequenceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // The counter exists before the first change: numbering runs too late in a transaction to create it
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialiser() {
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                if (compteurSequenceRepository.findValeur(SEQUENCE).isEmpty()) {
+                    compteurSequenceRepository.saveAndFlush(new CompteurSequence(SEQUENCE, 1L));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Counter {} created concurrently", SEQUENCE);
+        }
+    }
+
+    // Called in the transaction that wrote the change, once per outbox row
+    public void numeroter(long idChangement) {
+        Numerotation numerotation = (Numerotation) TransactionSynchronizationManager.getResource(this);
+        if (numerotation == null) {
+            Numerotation aNumeroter = new Numerotation();
+            TransactionSynchronizationManager.bindResource(this, aNumeroter);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    attribuer(aNumeroter);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(NumerotationChangements.this);
+                }
+            });
+            numerotation = aNumeroter;
+        }
+        numerotation.idChangements.add(idChangement);
+    }
+
+    // Last sequence given to the changes of the current transaction, readable until its completion:
+    // empty before its commit or when it wrote no change
+    public OptionalLong sequenceDeLaTransaction() {
+        Numerotation numerotation = TransactionSynchronizationManager.isSynchronizationActive()
+                ? (Numerotation) TransactionSynchronizationManager.getResource(this) : null;
+        return numerotation == null || numerotation.derniere == 0 ? OptionalLong.empty() : OptionalLong.of(numerotation.derniere);
+    }
+
+    // Last sequence committed as seen by the current transaction: with a snapshot read, every change up to
+    // it is in the snapshot and none after it
+    public long derniereSequenceCommitee() {
+        return compteurSequenceRepository.findValeur(SEQUENCE).orElse(1L) - 1;
+    }
+
+    private void attribuer(Numerotation numerotation) {
+        List<Long> idChangements = numerotation.idChangements;
+        // 1. Write everything else first: once the counter is locked, the commit must not wait on another row
+        entityManager.flush();
+        // 2. Reserve [fin - n, fin); the counter stays locked until this transaction commits
+        if (compteurSequenceRepository.avancer(SEQUENCE, idChangements.size()) == 0) {
+            throw new IllegalStateException("Sequence counter '" + SEQUENCE + "' is missing");
+        }
+        long debut = compteurSequenceRepository.findValeur(SEQUENCE).orElseThrow() - idChangements.size();
+        // 3. Number the rows in the order they were written
+        List<Object[]> lignes = new ArrayList<>(idChangements.size());
+        for (int i = 0; i < idChangements.size(); i++) {
+            lignes.add(new Object[]{debut + i, idChangements.get(i)});
+        }
+        jdbcTemplate.batchUpdate("UPDATE reservation_changement SET sequence = ? WHERE id_changement = ?", lignes);
+        numerotation.derniere = debut + idChangements.size() - 1;
+    }
+
+    // Changes written by one transaction, and the last sequence they were given
+    private static final class Numerotation {
+        private final List<Long> idChangements = new ArrayList<>();
+        private long derniere;
+    }
+}
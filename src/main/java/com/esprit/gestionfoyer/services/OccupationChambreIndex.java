@@ -0,0 +1,187 @@
+package com.esprit.gestionfoyer.services;
+
+import com.esprit.gestionfoyer.entites.OccupationChambre;
+import com.esprit.gestionfoyer.repositories.OccupationChambreRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+/**
+ * In-memory copy of the occupation_chambre table for the academic years in use.
+ * Loaded once at startup, kept up to date by the reservation service after each commit,
+ * and periodically reloaded so changes made by other nodes are picked up. Changes applied while
+ * a year is being reloaded are replayed on the fresh copy before it replaces the old one, except those
+ * the reload already read: changes commit in the order of their feed sequence, so the last sequence
+ * committed in the snapshot of the reload tells them apart.
+ */
+@Component
+public class OccupationChambreIndex {
+
+    @Autowired
+    private OccupationChambreRepository occupationChambreRepository;
+
+    @Autowired
+    private NumerotationChangements numerotationChangements;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // academic start year -> (idChambre -> occupied places)
+    private final ConcurrentHashMap<Integer, ConcurrentHashMap<Long, AtomicInteger>> occupationParAnnee = new ConcurrentHashMap<>();
+
+    // academic start year being reloaded -> changes applied since the reload started
+    private final ConcurrentHashMap<Integer, Queue<Changement>> changementsPendantRechargement = new ConcurrentHashMap<>();
+
+    // Changes share the read lock; the replay and the swap of a reloaded year take the write lock
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+
+    // One reload at a time, so two reloads of a year never share their recorded changes
+    private final ReentrantLock verrouRechargement = new ReentrantLock();
+
+    // Both reads of a reload see the same snapshot
+    private TransactionTemplate lectureCoherente;
+
+    @PostConstruct
+    void initialiser() {
+        lectureCoherente = new TransactionTemplate(transactionManager);
+        lectureCoherente.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        lectureCoherente.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void chargerAnneeCourante() {
+        recharger(AnneeUniversitaire.courante());
+    }
+
+    @Scheduled(fixedDelayString = "${gestionfoyer.occupation.index.rafraichissement-ms:60000}",
+            initialDelayString = "${gestionfoyer.occupation.index.rafraichissement-ms:60000}")
+    public void rafraichir() {
+        for (Integer annee : occupationParAnnee.keySet()) {
+            recharger(annee);
+        }
+    }
+
+    public void recharger(int annee) {
+        verrouRechargement.lock();
+        try {
+            // 1. Record the changes applied from now on: the query below may or may not have seen them
+            Queue<Changement> changements = new ConcurrentLinkedQueue<>();
+            changementsPendantRechargement.put(annee, changements);
+            try {
+                // 2. The rows and the last committed sequence from one snapshot
+                ConcurrentHashMap<Long, AtomicInteger> occupation = new ConcurrentHashMap<>();
+                long derniereSequence = lectureCoherente.execute(status -> {
+                    occupation.putAll(charger(annee));
+                    return numerotationChangements.derniereSequenceCommitee();
+                });
+                // 3. Replay the changes committed after the snapshot and swap the copy in, with no change in between
+                verrou.writeLock().lock();
+                try {
+                    for (Changement changement : changements) {
+                        if (changement.sequence() > derniereSequence) {
+                            appliquer(occupation, changement.idChambre(), changement.valeur());
+                        }
+                    }
+                    occupationParAnnee.put(annee, occupation);
+                } finally {
+                    verrou.writeLock().unlock();
+                }
+            } finally {
+                changementsPendantRechargement.remove(annee);
+            }
+        } finally {
+            verrouRechargement.unlock();
+        }
+    }
+
+    public int getOccupation(long idChambre, int annee) {
+        AtomicInteger occupation = occupation(annee).get(idChambre);
+        return occupation == null ? 0 : occupation.get();
+    }
+
+    public boolean estLibre(long idChambre, int annee) {
+        return getOccupation(idChambre, annee) == 0;
+    }
+
+    public void incrementer(long idChambre, LocalDate dateReservation) {
+        int annee = AnneeUniversitaire.anneeDebut(dateReservation);
+        apresCommit(sequence -> modifier(annee, new Changement(idChambre, 1, sequence)));
+    }
+
+    public void decrementer(long idChambre, LocalDate dateReservation) {
+        int annee = AnneeUniversitaire.anneeDebut(dateReservation);
+        apresCommit(sequence -> modifier(annee, new Changement(idChambre, -1, sequence)));
+    }
+
+    // Applies a committed change to the current copy, and records it if the year is being reloaded
+    private void modifier(int annee, Changement changement) {
+        verrou.readLock().lock();
+        try {
+            appliquer(occupation(annee), changement.idChambre(), changement.valeur());
+            Queue<Changement> changements = changementsPendantRechargement.get(annee);
+            if (changements != null) {
+                changements.add(changement);
+            }
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    private void appliquer(ConcurrentHashMap<Long, AtomicInteger> occupation, long idChambre, int changement) {
+        if (changement > 0) {
+            occupation.computeIfAbsent(idChambre, id -> new AtomicInteger()).addAndGet(changement);
+        } else if (changement < 0) {
+            AtomicInteger places = occupation.get(idChambre);
+            if (places != null) {
+                places.updateAndGet(valeur -> Math.max(0, valeur + changement));
+            }
+        }
+    }
+
+    private ConcurrentHashMap<Long, AtomicInteger> occupation(int annee) {
+        return occupationParAnnee.computeIfAbsent(annee, this::charger);
+    }
+
+    private ConcurrentHashMap<Long, AtomicInteger> charger(int annee) {
+        ConcurrentHashMap<Long, AtomicInteger> occupation = new ConcurrentHashMap<>();
+        for (OccupationChambre ligne : occupationChambreRepository.findByAnneeAndOccupeGreaterThan(annee, 0)) {
+            occupation.put(ligne.getIdChambre(), new AtomicInteger(ligne.getOccupe()));
+        }
+        return occupation;
+    }
+
+    // Only apply changes that were actually committed, with the feed sequence of their transaction. A change
+    // without one is always replayed
+    private void apresCommit(LongConsumer action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.accept(numerotationChangements.sequenceDeLaTransaction().orElse(Long.MAX_VALUE));
+                }
+            });
+        } else {
+            action.accept(Long.MAX_VALUE);
+        }
+    }
+
+    private record Changement(long idChambre, int valeur, long sequence) {
+    }
+}
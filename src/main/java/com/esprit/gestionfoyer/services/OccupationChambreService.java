@@ -0,0 +1,154 @@
+package com.esprit.gestionfoyer.services;
+
+import com.esprit.gestionfoyer.entites.Chambre;
+import com.esprit.gestionfoyer.entites.OccupationChambre;
+import com.esprit.gestionfoyer.entites.TypeChambre;
+import com.esprit.gestionfoyer.repositories.OccupationChambreRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the occupation_chambre table inside the caller's transaction.
+ * A place is taken with a conditional UPDATE (occupe < capacite), so capacity checks need no
+ * count query and no lock on the chambre. Rows are created with their chambre for the current and
+ * the coming year, ahead of each year by a daily job, and backfilled from the reservations of the
+ * current year at startup. A row still missing at admission is inserted in the caller's transaction.
+ */
+@Slf4j
+@Service
+public class OccupationChambreService {
+
+    @Autowired
+    private OccupationChambreRepository occupationChambreRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    // Runs before the in-memory index is loaded from this table
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void initialiserAnneeCourante() {
+        initialiser(AnneeUniversitaire.courante());
+    }
+
+    @Transactional
+    public void initialiser(int annee) {
+        // 1. Create the missing rows of the year
+        int creees = inserer(occupationChambreRepository.findChambresSansOccupation(annee), annee);
+        // 2. Recount every row of the year from the valid reservations
+        int lignes = occupationChambreRepository.recompter(annee, AnneeUniversitaire.debut(annee), AnneeUniversitaire.fin(annee));
+        log.info("Occupation {}: {} chambres, {} created", annee, lignes, creees);
+    }
+
+    // Creates the rows of the coming year before it starts, so its first admissions find them
+    @Scheduled(cron = "${gestionfoyer.occupation.preparation.cron:0 0 2 * * *}")
+    @Transactional
+    public void preparerAnneeSuivante() {
+        int annee = AnneeUniversitaire.courante() + 1;
+        int creees = inserer(occupationChambreRepository.findChambresSansOccupation(annee), annee);
+        if (creees > 0) {
+            log.info("Occupation {}: {} created ahead of the year", annee, creees);
+        }
+    }
+
+    // Rows of new chambres for the current and the coming year, in the transaction creating them
+    @Transactional
+    public void creer(Collection<Long> idChambres) {
+        if (idChambres.isEmpty()) {
+            return;
+        }
+        int annee = AnneeUniversitaire.courante();
+        creer(idChambres, annee);
+        creer(idChambres, annee + 1);
+    }
+
+    // Takes a place in the chambre, false when it is already full
+    @Transactional
+    public boolean occuper(Chambre chambre, int annee) {
+        // The row is created before the UPDATE: an UPDATE matching no row may hold a gap lock
+        // that another transaction creating the row would then wait on
+        if (!occupationChambreRepository.existsByIdChambreAndAnnee(chambre.getIdChambre(), annee)) {
+            creer(List.of(chambre.getIdChambre()), annee);
+        }
+        return occupationChambreRepository.occuper(chambre.getIdChambre(), annee) == 1;
+    }
+
+    @Transactional
+    public void liberer(long idChambre, int annee) {
+        occupationChambreRepository.liberer(idChambre, annee);
+    }
+
+    // Locks the rows of the given chambres for the year, creating the missing ones
+    @Transactional
+    public Map<Long, OccupationChambre> verrouiller(Collection<Chambre> chambres, int annee) {
+        if (chambres.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> idChambres = chambres.stream().map(Chambre::getIdChambre).collect(Collectors.toList());
+        creer(idChambres, annee);
+        return occupationChambreRepository.findForUpdate(annee, idChambres).stream()
+                .collect(Collectors.toMap(OccupationChambre::getIdChambre, Function.identity()));
+    }
+
+    // The type of a chambre decides its capacity for every year; the current and coming years must
+    // still hold their students
+    @Transactional
+    public void resynchroniserCapacite(long idChambre, TypeChambre typeC) {
+        int capacite = capacite(typeC);
+        for (OccupationChambre occupation : occupationChambreRepository.findForUpdateDepuis(idChambre, AnneeUniversitaire.courante())) {
+            if (occupation.getOccupe() > capacite) {
+                throw new RuntimeException("Chambre " + idChambre + " holds " + occupation.getOccupe() + " students in "
+                        + occupation.getAnnee() + ", more than the capacity " + capacite + " of type " + typeC);
+            }
+        }
+        occupationChambreRepository.updateCapacite(idChambre, capacite);
+    }
+
+    @Transactional
+    public void supprimer(long idChambre) {
+        occupationChambreRepository.deleteByIdChambre(idChambre);
+    }
+
+    public static int capacite(TypeChambre type) {
+        return type == null ? 0 : type.getCapacite();
+    }
+
+    private void creer(Collection<Long> idChambres, int annee) {
+        inserer(occupationChambreRepository.findChambresSansOccupationIn(annee, idChambres), annee);
+    }
+
+    // Inserts the rows [idChambre, typeC] in the caller's transaction. A row inserted concurrently by
+    // another request is kept as it is: the insert waits for it instead of failing the transaction
+    private int inserer(List<Object[]> chambres, int annee) {
+        if (chambres.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO occupation_chambre (id_chambre, annee, occupe, capacite) VALUES (?, ?, 0, ?) " +
+                        "ON DUPLICATE KEY UPDATE id_chambre = id_chambre",
+                chambres, batchSize, (statement, ligne) -> {
+                    statement.setLong(1, (Long) ligne[0]);
+                    statement.setInt(2, annee);
+                    statement.setInt(3, capacite((TypeChambre) ligne[1]));
+                });
+        return chambres.size();
+    }
+}
@@ -0,0 +1,27 @@
+package com.esprit.gestionfoyer.services;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+public final class Pagination {
+
+    public static final int TAILLE_PAR_DEFAUT = 20;
+    public static final int TAILLE_MAX = 200;
+
+    private Pagination() {
+    }
+
+    // Keyset pages always start at offset 0, the position is given by the cursor in the query
+    public static Pageable limite(Integer taille) {
+        int limite = taille == null ? TAILLE_PAR_DEFAUT : Math.max(1, Math.min(taille, TAILLE_MAX));
+        return PageRequest.of(0, limite);
+    }
+
+    public static long apres(Long curseur) {
+        return curseur == null ? 0L : curseur;
+    }
+
+    public static String apres(String curseur) {
+        return curseur == null ? "" : curseur;
+    }
+}
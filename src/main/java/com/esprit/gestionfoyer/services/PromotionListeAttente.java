@@ -0,0 +1,185 @@
+package com.esprit.gestionfoyer.services;
+
+import com.esprit.gestionfoyer.dto.AjouterReservationDTO;
+import com.esprit.gestionfoyer.dto.ReservationResultatDTO;
+import com.esprit.gestionfoyer.entites.AttenteReservation;
+import com.esprit.gestionfoyer.entites.OccupationChambre;
+import com.esprit.gestionfoyer.entites.TypeChambre;
+import com.esprit.gestionfoyer.repositories.AttenteReservationRepository;
+import com.esprit.gestionfoyer.repositories.ChambreRepository;
+import com.esprit.gestionfoyer.repositories.EtudiantRepository;
+import com.esprit.gestionfoyer.repositories.OccupationChambreRepository;
+import com.esprit.gestionfoyer.repositories.ReservationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Gives places freed by cancellations to the students of the matching waiting list.
+ * Cancellations only enqueue the freed place after their commit; a scheduled worker drains
+ * the queue every few seconds and promotes the waiting students of all freed places in one
+ * transaction, through the same bulk admission (and capacity checks) as POST /reservations/batch.
+ * Entries whose student was removed or housed meanwhile are closed on the way, and a place their
+ * student could not take goes back to the queue for the next one.
+ */
+@Slf4j
+@Component
+public class PromotionListeAttente {
+
+    @Autowired
+    private IReservationService reservationService;
+
+    @Autowired
+    private AttenteReservationRepository attenteReservationRepository;
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+
+    @Autowired
+    private EtudiantRepository etudiantRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private OccupationChambreRepository occupationChambreRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // idChambre, once per freed place
+    private final ConcurrentLinkedQueue<Long> placesLiberees = new ConcurrentLinkedQueue<>();
+
+    // Waiting lists are for the current academic year only
+    @TransactionalEventListener
+    public void onReservationAnnulee(ReservationAnnuleeEvent event) {
+        if (AnneeUniversitaire.anneeDebut(event.anneeUniversitaire()) == AnneeUniversitaire.courante()) {
+            placesLiberees.add(event.idChambre());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${gestionfoyer.attente.promotion-ms:2000}")
+    public void promouvoir() {
+        // 1. Drain the places freed since the last run
+        List<Long> places = new ArrayList<>();
+        for (Long idChambre = placesLiberees.poll(); idChambre != null; idChambre = placesLiberees.poll()) {
+            places.add(idChambre);
+        }
+        if (places.isEmpty()) {
+            return;
+        }
+        try {
+            List<Long> inutilisees = new ArrayList<>();
+            int promus = new TransactionTemplate(transactionManager).execute(status -> promouvoir(places, inutilisees));
+            // Places whose student could not take them after all: offered to the next one on the next run
+            placesLiberees.addAll(inutilisees);
+            log.debug("{} places freed, {} waiting students promoted, {} places requeued", places.size(), promus, inutilisees.size());
+        } catch (RuntimeException e) {
+            // Retried on the next run
+            placesLiberees.addAll(places);
+            log.warn("Waiting list promotion failed, {} places requeued", places.size(), e);
+        }
+    }
+
+    private int promouvoir(List<Long> places, List<Long> inutilisees) {
+        // 2. Keep the places still free: the occupancy rows are locked until the admission below,
+        // so a place kept here cannot be taken in between
+        Map<Long, Integer> libres = new HashMap<>();
+        for (OccupationChambre occupation : occupationChambreRepository.findForUpdate(AnneeUniversitaire.courante(), new HashSet<>(places))) {
+            libres.put(occupation.getIdChambre(), occupation.getCapacite() - occupation.getOccupe());
+        }
+        // 3. Group them by waiting list (university, type)
+        Map<Long, FileAttente> fileParChambre = new HashMap<>();
+        for (Object[] ligne : chambreRepository.findUniversiteEtTypeParIdChambreIn(places)) {
+            fileParChambre.put((Long) ligne[0], new FileAttente((Long) ligne[1], (TypeChambre) ligne[2]));
+        }
+        Map<FileAttente, List<Long>> placesParFile = new HashMap<>();
+        for (Long idChambre : places) {
+            FileAttente file = fileParChambre.get(idChambre);
+            if (file != null && libres.merge(idChambre, -1, Integer::sum) >= 0) {
+                placesParFile.computeIfAbsent(file, f -> new ArrayList<>()).add(idChambre);
+            }
+        }
+        // 4. Match each place with the next waiting student of its list
+        List<AjouterReservationDTO> demandes = new ArrayList<>();
+        Map<Long, AttenteReservation> attenteParCin = new HashMap<>();
+        placesParFile.forEach((file, chambres) -> apparier(file, chambres, demandes, attenteParCin));
+        if (demandes.isEmpty()) {
+            return 0;
+        }
+        // 5. Admit them in one batch. The places are locked and the students checked, so a refusal
+        // means the student was housed concurrently: close the entry and give the place to the next one.
+        // A new id range is reserved on the generator's own connection, never while waiting on the pool
+        int promus = 0;
+        for (ReservationResultatDTO resultat : reservationService.ajouterReservations(demandes)) {
+            AttenteReservation attente = attenteParCin.get(resultat.getCinEtudiant());
+            if (resultat.isSucces()) {
+                attente.setIdReservation(resultat.getIdReservation());
+                attente.setDatePromotion(LocalDateTime.now());
+                promus++;
+            } else {
+                attente.setDateCloture(LocalDateTime.now());
+                inutilisees.add(resultat.getIdChambre());
+            }
+        }
+        return promus;
+    }
+
+    // Gives the places of a list to its oldest open entries, closing on the way the entries of students
+    // removed or housed meanwhile; they would otherwise hold the head of the list
+    private void apparier(FileAttente file, List<Long> chambres, List<AjouterReservationDTO> demandes,
+                          Map<Long, AttenteReservation> attenteParCin) {
+        int prises = 0;
+        boolean fermees = true;
+        while (prises < chambres.size() && fermees) {
+            // Entries matched by a previous round are still open: read past them
+            List<AttenteReservation> attentes = attenteReservationRepository.findProchainsAPromouvoir(
+                    file.idUniversite(), file.typeC(), PageRequest.of(0, chambres.size())).stream()
+                    .filter(attente -> !attenteParCin.containsKey(attente.getCinEtudiant()))
+                    .toList();
+            Set<Long> aFermer = aFermer(attentes);
+            fermees = false;
+            for (AttenteReservation attente : attentes) {
+                if (aFermer.contains(attente.getCinEtudiant())) {
+                    attente.setDateCloture(LocalDateTime.now());
+                    fermees = true;
+                } else if (prises < chambres.size()) {
+                    AjouterReservationDTO demande = new AjouterReservationDTO();
+                    demande.setIdChambre(chambres.get(prises++));
+                    demande.setCinEtudiant(attente.getCinEtudiant());
+                    demandes.add(demande);
+                    attenteParCin.put(attente.getCinEtudiant(), attente);
+                }
+            }
+        }
+    }
+
+    // CINs of the entries whose student no longer exists or already holds a valid reservation
+    private Set<Long> aFermer(List<AttenteReservation> attentes) {
+        if (attentes.isEmpty()) {
+            return Set.of();
+        }
+        List<Long> cins = attentes.stream().map(AttenteReservation::getCinEtudiant).toList();
+        Set<Long> aFermer = new HashSet<>(cins);
+        aFermer.removeAll(etudiantRepository.findCinsExistants(cins));
+        aFermer.addAll(reservationRepository.findCinsAvecReservationValide(cins));
+        return aFermer;
+    }
+
+    private record FileAttente(Long idUniversite, TypeChambre typeC) {
+    }
+}
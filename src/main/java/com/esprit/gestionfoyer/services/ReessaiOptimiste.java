@@ -0,0 +1,84 @@
+package com.esprit.gestionfoyer.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bounded retry of write transactions that lost a conflict the server caused itself: a deadlock, a lock
+ * timeout or a version check between two of its own writes. The version sent by the client is required
+ * and never re-read, so an update made from a stale version fails at once instead of being retried over
+ * the other writer's data.
+ * Each attempt runs in its own transaction, so the caller must not already be in one:
+ * a retry inside the transaction that lost the conflict would read the same stale state.
+ */
+@Component
+public class ReessaiOptimiste {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${gestionfoyer.optimiste.tentatives:3}")
+    private int tentatives;
+
+    @Value("${gestionfoyer.optimiste.attente-ms:20}")
+    private long attenteMs;
+
+    public <T> T executer(Supplier<T> action) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int tentative = 1; ; tentative++) {
+            try {
+                return transaction.execute(status -> action.get());
+            } catch (ConcurrencyFailureException e) {
+                if (tentative >= tentatives) {
+                    throw new RuntimeException("Concurrent modification, gave up after " + tentatives + " attempts", e);
+                }
+                attendre(tentative);
+            }
+        }
+    }
+
+    public void executer(Runnable action) {
+        executer(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // The version the client read the entity at: an update without one would silently overwrite the last writer
+    public static long versionExigee(Long version, String entite, Object id) {
+        if (version == null) {
+            throw new RuntimeException("version is required to update " + entite + " " + id);
+        }
+        return version;
+    }
+
+    // Called when a conditional update touched no row: tells a missing entity from a stale client version
+    public static void verifier(int lignes, BooleanSupplier existe, String entite, Object id, long version) {
+        if (lignes > 0) {
+            return;
+        }
+        if (!existe.getAsBoolean()) {
+            throw new RuntimeException(entite + " not found with id: " + id);
+        }
+        throw new RuntimeException(entite + " " + id + " was modified concurrently, version " + version + " is stale");
+    }
+
+    // Exponential backoff with jitter, so the writers that collided do not collide again
+    private void attendre(int tentative) {
+        long attente = attenteMs << (tentative - 1);
+        try {
+            Thread.sleep(attente + ThreadLocalRandom.current().nextLong(attente + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while retrying a concurrent modification", e);
+        }
+    }
+}
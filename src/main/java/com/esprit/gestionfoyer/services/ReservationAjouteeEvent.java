@@ -0,0 +1,7 @@
+package com.esprit.gestionfoyer.services;
+
+import java.time.LocalDate;
+
+// Published by ajouterReservation(s) for each place taken in a chambre
+public record ReservationAjouteeEvent(long idChambre, LocalDate anneeUniversitaire) {
+}
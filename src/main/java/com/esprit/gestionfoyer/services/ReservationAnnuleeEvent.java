@@ -0,0 +1,7 @@
+package com.esprit.gestionfoyer.services;
+
+import java.time.LocalDate;
+
+// Published by annulerReservation when a place of the chambre is given back
+public record ReservationAnnuleeEvent(long idChambre, LocalDate anneeUniversitaire) {
+}
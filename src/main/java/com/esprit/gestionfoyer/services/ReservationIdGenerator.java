@@ -0,0 +1,100 @@
+package com.esprit.gestionfoyer.services;
+
+import com.esprit.gestionfoyer.entites.Chambre;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reservation ids of the form numChambre-nomBloc-year-sequence.
+ * The sequence is global: each node reserves a range of values from the compteur_sequence table
+ * in its own short transaction, then hands them out from memory. Values of a range not used
+ * before a restart are skipped, never reused.
+ * Ranges are reserved on a dedicated single-connection pool: the caller already holds a connection
+ * of the application pool, and waiting for a second one from the same pool starves it under a burst.
+ */
+@Component
+public class ReservationIdGenerator {
+
+    private static final String SEQUENCE = "reservation";
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Value("${gestionfoyer.reservation.id.taille-bloc:100}")
+    private int tailleBloc;
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transaction;
+
+    // ReentrantLock rather than synchronized: a virtual thread waiting on the allocation is not pinned
+    private final ReentrantLock verrou = new ReentrantLock();
+    private long prochain;
+    private long limite;
+
+    @PostConstruct
+    void ouvrir() {
+        dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("reservation-ids");
+        // Allocations are serialized by the lock, one connection is all they can use
+        dataSource.setMaximumPoolSize(1);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @PreDestroy
+    void fermer() {
+        dataSource.close();
+    }
+
+    public String generer(Chambre chambre, LocalDate dateReservation) {
+        return chambre.getNumeroChambre() + "-" + chambre.getBloc().getNomBloc() + "-"
+                + dateReservation.getYear() + "-" + suivant();
+    }
+
+    public long suivant() {
+        verrou.lock();
+        try {
+            if (prochain >= limite) {
+                prochain = allouerBloc();
+                limite = prochain + tailleBloc;
+            }
+            return prochain++;
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    // Reserves [debut, debut + tailleBloc) and returns debut. Commits on its own connection, so the range
+    // stays reserved even if the caller's transaction rolls back.
+    private long allouerBloc() {
+        try {
+            return transaction.execute(status -> avancer());
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the counter first: advance the existing row instead
+            return transaction.execute(status -> avancer());
+        }
+    }
+
+    private long avancer() {
+        // The UPDATE row-locks the counter until the commit
+        if (jdbcTemplate.update("UPDATE compteur_sequence SET valeur = valeur + ? WHERE nom = ?", tailleBloc, SEQUENCE) == 0) {
+            // A counter created concurrently fails this insert on the primary key
+            jdbcTemplate.update("INSERT INTO compteur_sequence (nom, valeur) VALUES (?, ?)", SEQUENCE, 1L + tailleBloc);
+            return 1L;
+        }
+        return jdbcTemplate.queryForObject("SELECT valeur FROM compteur_sequence WHERE nom = ?", Long.class, SEQUENCE) - tailleBloc;
+    }
+}
@@ -1,19 +1,52 @@
 package com.esprit.gestionfoyer.services;
 
+import com.esprit.gestionfoyer.dto.AjouterReservationDTO;
+import com.esprit.gestionfoyer.dto.ChangementsReservationDTO;
+import com.esprit.gestionfoyer.dto.ReservationResultatDTO;
+import com.esprit.gestionfoyer.dto.PageCurseurDTO;
+import com.esprit.gestionfoyer.dto.ReservationChangementDTO;
+import com.esprit.gestionfoyer.dto.ReservationVueDTO;
+import com.esprit.gestionfoyer.dto.StatistiqueOccupationDTO;
 import com.esprit.gestionfoyer.entites.Chambre;
 import com.esprit.gestionfoyer.entites.Etudiant;
+import com.esprit.gestionfoyer.entites.OccupationChambre;
 import com.esprit.gestionfoyer.entites.Reservation;
+import com.esprit.gestionfoyer.entites.ReservationArchive;
+import com.esprit.gestionfoyer.entites.ReservationChangement;
+import com.esprit.gestionfoyer.entites.TypeChangementReservation;
 import com.esprit.gestionfoyer.entites.TypeChambre;
 import com.esprit.gestionfoyer.repositories.ChambreRepository;
 import com.esprit.gestionfoyer.repositories.EtudiantRepository;
+import com.esprit.gestionfoyer.repositories.ReservationArchiveRepository;
+import com.esprit.gestionfoyer.repositories.ReservationChangementRepository;
 import com.esprit.gestionfoyer.repositories.ReservationRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
+@Timed(value = "gestionfoyer.service", histogram = true, percentiles = {0.5, 0.95, 0.99})
 public class ReservationServiceImpl implements IReservationService {
     @Autowired
     private ReservationRepository reservationRepository;
@@ -24,91 +57,281 @@ public class ReservationServiceImpl implements IReservationService {
     @Autowired
     private EtudiantRepository etudiantRepository;
 
+    @Autowired
+    private OccupationChambreIndex occupationChambreIndex;
+
+    @Autowired
+    private ReservationIdGenerator reservationIdGenerator;
+
+    @Autowired
+    private OccupationChambreService occupationChambreService;
+
+    @Autowired
+    private EtudiantCache etudiantCache;
+
+    @Autowired
+    private AllocateurChambres allocateurChambres;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ReessaiOptimiste reessaiOptimiste;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Autowired
+    private ReservationChangementRepository reservationChangementRepository;
+
+    @Autowired
+    private NumerotationChangements numerotationChangements;
+
+    @Autowired
+    private ReservationArchiveRepository reservationArchiveRepository;
+
+
+
+    @Override
+    public List<ReservationVueDTO> retrieveAllReservation() {
+        return reservationRepository.findAllVues();
+    }
 
     @Override
-    public List<Reservation> retrieveAllReservation() {
-        return reservationRepository.findAll();
+    public PageCurseurDTO<ReservationVueDTO, String> retrieveReservationsPage(String apres, Integer taille, Boolean estValide, Long idChambre) {
+        return PageCurseurDTO.of(reservationRepository.findPageVues(Pagination.apres(apres), estValide, idChambre, Pagination.limite(taille)),
+                ReservationVueDTO::getIdReservation);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exporterReservations(Consumer<ReservationVueDTO> consumer) {
+        try (Stream<ReservationVueDTO> vues = reservationRepository.streamVues()) {
+            vues.forEach(consumer);
+        }
     }
 
     @Override
     public Reservation updateReservation(Reservation res) {
-        // Check if reservation exists before updating
-        if (reservationRepository.existsById(res.getIdReservation())) {
-            return reservationRepository.save(res);
+        long version = ReessaiOptimiste.versionExigee(res.getVersion(), "Reservation", res.getIdReservation());
+        return reessaiOptimiste.executer(() -> modifierReservation(res, version));
+    }
+
+    private Reservation modifierReservation(Reservation res, long version) {
+        // 1. Read the current state: the occupancy follows its validity and year; archived reservations are read-only
+        Reservation existante = reservationRepository.findById(res.getIdReservation())
+                .orElseThrow(() -> reservationArchiveRepository.existsById(res.getIdReservation())
+                        ? new RuntimeException("Reservation " + res.getIdReservation() + " is archived and can no longer be modified")
+                        : new RuntimeException("Reservation not found with id: " + res.getIdReservation()));
+        if (res.getAnneeUniversitaire() == null) {
+            throw new RuntimeException("anneeUniversitaire is required for reservation: " + res.getIdReservation());
+        }
+        Chambre chambre = existante.getChambre();
+        boolean deplacee = existante.isEstValide() != res.isEstValide()
+                || !existante.getAnneeUniversitaire().equals(res.getAnneeUniversitaire());
+        // 2. Move the place from the previous state to the new one, refused when the chambre is full
+        if (chambre != null && deplacee) {
+            if (existante.isEstValide()) {
+                occupationChambreService.liberer(chambre.getIdChambre(), AnneeUniversitaire.anneeDebut(existante.getAnneeUniversitaire()));
+            }
+            if (res.isEstValide() && !occupationChambreService.occuper(chambre, AnneeUniversitaire.anneeDebut(res.getAnneeUniversitaire()))) {
+                throw new RuntimeException("Chambre capacity exceeded for type: " + chambre.getTypeC());
+            }
         }
-        throw new RuntimeException("Reservation not found with id: " + res.getIdReservation());
+        // 3. Conditional update of the scalar fields, a concurrent edit in between makes it touch no row
+        int lignes = reservationRepository.updateChamps(res.getIdReservation(), version, res.getAnneeUniversitaire(), res.isEstValide());
+        ReessaiOptimiste.verifier(lignes, () -> reservationRepository.existsById(res.getIdReservation()), "Reservation",
+                res.getIdReservation(), version);
+        // 4. Index and listeners see the move once this transaction commits
+        if (chambre != null && deplacee) {
+            if (existante.isEstValide()) {
+                occupationChambreIndex.decrementer(chambre.getIdChambre(), existante.getAnneeUniversitaire());
+                eventPublisher.publishEvent(new ReservationAnnuleeEvent(chambre.getIdChambre(), existante.getAnneeUniversitaire()));
+            }
+            if (res.isEstValide()) {
+                occupationChambreIndex.incrementer(chambre.getIdChambre(), res.getAnneeUniversitaire());
+                eventPublisher.publishEvent(new ReservationAjouteeEvent(chambre.getIdChambre(), res.getAnneeUniversitaire()));
+            }
+        }
+        // 5. Change feed entry, committed with the update
+        journaliser(res, existante.isEstValide() && !res.isEstValide() ? TypeChangementReservation.ANNULATION
+                : TypeChangementReservation.MODIFICATION, chambre == null ? null : chambre.getIdChambre());
+        return retrieveReservation(res.getIdReservation());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Reservation retrieveReservation(String idReservation) {
+        // Live table first, then the archive of the closed academic years
         return reservationRepository.findById(idReservation)
+                .or(() -> reservationArchiveRepository.findById(idReservation).map(this::depuisArchive))
+                .orElseThrow(() -> new RuntimeException("Reservation not found with id: " + idReservation));
+    }
+
+    @Override
+    public ReservationVueDTO retrieveReservationVue(String idReservation) {
+        return reservationRepository.findVueById(idReservation)
+                .or(() -> reservationArchiveRepository.findVueById(idReservation))
                 .orElseThrow(() -> new RuntimeException("Reservation not found with id: " + idReservation));
     }
+
+    // Detached copy of an archived reservation, with the chambre and students that still exist
+    private Reservation depuisArchive(ReservationArchive archive) {
+        Reservation reservation = new Reservation();
+        reservation.setIdReservation(archive.getIdReservation());
+        reservation.setAnneeUniversitaire(archive.getAnneeUniversitaire());
+        reservation.setEstValide(archive.isEstValide());
+        reservation.setVersion(archive.getVersion());
+        reservation.setChambre(archive.getIdChambre() == null ? null : chambreRepository.findById(archive.getIdChambre()).orElse(null));
+        reservation.setEtudiants(etudiantRepository.findAllById(archive.getIdEtudiants()));
+        return reservation;
+    }
     @Override
+    @Transactional
     public Reservation ajouterReservation(long idChambre, long cinEtudiant) {
-        // 1. Find the chambre and check capacity
+        // 1. Find the chambre
         Chambre chambre = chambreRepository.findById(idChambre).orElseThrow(() -> new RuntimeException("Chambre not found with id: " + idChambre));
-        // 2. Find the student+-+-
-        Etudiant etudiant = etudiantRepository.findByCin(cinEtudiant).orElseThrow(() -> new RuntimeException("Etudiant not found with CIN: " + cinEtudiant));
-        // 3. Check if chambre capacity is not exceeded
-        if (!isChambreCapacityAvailable(chambre)) {
+        // 2. Find the student, who must not be housed yet
+        Etudiant etudiant = etudiantALoger(cinEtudiant);
+        // 3. Take a place in the chambre for the academic year: a single conditional UPDATE
+        // that fails when the chambre is full, concurrent admissions are serialized on its row
+        if (!occupationChambreService.occuper(chambre, AnneeUniversitaire.courante())) {
             throw new RuntimeException("Chambre capacity exceeded for type: " + chambre.getTypeC());
         }
-        // 4. Create reservation number format: numChambre-nomBloc-anneeUniversitaire
-        String numReservation = generateReservationNumber(chambre);
-        // 5. Create and save reservation
+        return creerReservation(chambre, etudiant);
+    }
+
+    @Override
+    @Transactional
+    public Reservation allouerChambre(long cinEtudiant, String nomUniversite, TypeChambre typeC) {
+        // 1. Find the student, who must not be housed yet
+        Etudiant etudiant = etudiantALoger(cinEtudiant);
+        // 2. Take the best free place of the university, partially filled chambres first
+        Chambre chambre = allocateurChambres.allouer(nomUniversite, typeC)
+                .orElseThrow(() -> new RuntimeException("No free chambre of type " + typeC + " in universite: " + nomUniversite));
+        return creerReservation(chambre, etudiant);
+    }
+
+    // The rule of ajouterReservations for one student: CIN resolved from cache, row locked until the commit so
+    // that two admissions of the same student cannot both see it unhoused
+    private Etudiant etudiantALoger(long cinEtudiant) {
+        Etudiant etudiant = etudiantCache.getIdEtudiant(cinEtudiant)
+                .flatMap(etudiantRepository::findForUpdate)
+                .orElseThrow(() -> new RuntimeException("Etudiant not found with CIN: " + cinEtudiant));
+        if (!reservationRepository.findCinsAvecReservationValide(List.of(cinEtudiant)).isEmpty()) {
+            throw new RuntimeException("Etudiant with CIN " + cinEtudiant + " already has a valid reservation");
+        }
+        return etudiant;
+    }
+
+    // The place is already taken in the chambre for the academic year
+    private Reservation creerReservation(Chambre chambre, Etudiant etudiant) {
+        // 1. Create reservation number format: numChambre-nomBloc-anneeUniversitaire-sequence
+        String numReservation = reservationIdGenerator.generer(chambre, LocalDate.now());
+        // 2. Create and save reservation
         Reservation reservation = new Reservation();
         reservation.setIdReservation(numReservation);
         reservation.setAnneeUniversitaire(LocalDate.now());
         reservation.setEstValide(true);
         reservation.setChambre(chambre);
-        // 6. Add student to reservation .
+        // 3. Add student to reservation .
         reservation.getEtudiants().add(etudiant);
 
-        return reservationRepository.save(reservation);
+        Reservation savedReservation = reservationRepository.save(reservation);
+        occupationChambreIndex.incrementer(chambre.getIdChambre(), savedReservation.getAnneeUniversitaire());
+        eventPublisher.publishEvent(new ReservationAjouteeEvent(chambre.getIdChambre(), savedReservation.getAnneeUniversitaire()));
+        journaliser(savedReservation, TypeChangementReservation.AJOUT, chambre.getIdChambre());
+        return savedReservation;
     }
-    //comentaire
-    private boolean isChambreCapacityAvailable(Chambre chambre) {
-        // Count current valid reservations for this chambre
-        List<Reservation> reservations = reservationRepository.findByChambreAndEstValideTrue(chambre);
-        // Check against chambre type capacity
-        return reservations.size() < getMaxCapacityByType(chambre.getTypeC());
-    }
-
-    private int getMaxCapacityByType(TypeChambre type) {
-        switch (type) {
-            case SIMPLE: return 1;
-            case DOUBLE: return 2;
-            case TRIPLE: return 3;
-            default: return 0;
+    @Override
+    @Transactional
+    public List<ReservationResultatDTO> ajouterReservations(List<AjouterReservationDTO> demandes) {
+        // 1. Prefetch every chambre and student with IN queries, the students locked as in ajouterReservation
+        Set<Long> idChambres = demandes.stream().map(AjouterReservationDTO::getIdChambre).collect(Collectors.toSet());
+        Set<Long> cins = demandes.stream().map(AjouterReservationDTO::getCinEtudiant).collect(Collectors.toSet());
+        Map<Long, Chambre> chambres = chambreRepository.findAllAvecBlocByIdIn(idChambres).stream()
+                .collect(Collectors.toMap(Chambre::getIdChambre, Function.identity()));
+        Map<Long, Etudiant> etudiants = etudiantRepository.findForUpdateByCinIn(cins).stream()
+                .collect(Collectors.toMap(Etudiant::getCin, Function.identity(), (premier, doublon) -> premier));
+        // Students already housed, completed below with those admitted by this batch
+        Set<Long> loges = new HashSet<>(reservationRepository.findCinsAvecReservationValide(cins));
+        // 2. Lock the occupancy rows of those chambres: places taken below are written back in one batch
+        Map<Long, OccupationChambre> occupations = occupationChambreService.verrouiller(chambres.values(), AnneeUniversitaire.courante());
+        // 3. Validate each demand in memory
+        List<ReservationResultatDTO> resultats = new ArrayList<>();
+        List<Reservation> aCreer = new ArrayList<>();
+        Map<Reservation, ReservationResultatDTO> resultatParReservation = new HashMap<>();
+        for (AjouterReservationDTO demande : demandes) {
+            ReservationResultatDTO resultat = new ReservationResultatDTO(demande.getIdChambre(), demande.getCinEtudiant(), null, false, null);
+            resultats.add(resultat);
+            Chambre chambre = chambres.get(demande.getIdChambre());
+            Etudiant etudiant = etudiants.get(demande.getCinEtudiant());
+            if (chambre == null) {
+                resultat.setMessage("Chambre not found with id: " + demande.getIdChambre());
+            } else if (etudiant == null) {
+                resultat.setMessage("Etudiant not found with CIN: " + demande.getCinEtudiant());
+            } else if (chambre.getBloc() == null) {
+                resultat.setMessage("Chambre " + chambre.getNumeroChambre() + " is not assigned to a bloc");
+            } else if (loges.contains(etudiant.getCin())) {
+                resultat.setMessage("Etudiant with CIN " + etudiant.getCin() + " already has a valid reservation");
+            } else if (occupations.get(chambre.getIdChambre()).getOccupe() >= occupations.get(chambre.getIdChambre()).getCapacite()) {
+                resultat.setMessage("Chambre capacity exceeded for type: " + chambre.getTypeC());
+            } else {
+                OccupationChambre occupation = occupations.get(chambre.getIdChambre());
+                occupation.setOccupe(occupation.getOccupe() + 1);
+                loges.add(etudiant.getCin());
+                Reservation reservation = new Reservation();
+                reservation.setIdReservation(reservationIdGenerator.generer(chambre, LocalDate.now()));
+                reservation.setAnneeUniversitaire(LocalDate.now());
+                reservation.setEstValide(true);
+                reservation.setChambre(chambre);
+                reservation.getEtudiants().add(etudiant);
+                aCreer.add(reservation);
+                resultatParReservation.put(reservation, resultat);
+            }
         }
-    }
-
-    private String generateReservationNumber(Chambre chambre) {
-        String numChambre = String.valueOf(chambre.getNumeroChambre());
-        String nomBloc = chambre.getBloc().getNomBloc();
-        String anneeUniversitaire = String.valueOf(LocalDate.now().getYear());
-
-        return numChambre + "-" + nomBloc + "-" + anneeUniversitaire;
+        // 4. Insert with JDBC batching: persist (no merge select) and flush every batch
+        for (int i = 0; i < aCreer.size(); i++) {
+            Reservation reservation = aCreer.get(i);
+            entityManager.persist(reservation);
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+            }
+            occupationChambreIndex.incrementer(reservation.getChambre().getIdChambre(), reservation.getAnneeUniversitaire());
+            eventPublisher.publishEvent(new ReservationAjouteeEvent(reservation.getChambre().getIdChambre(), reservation.getAnneeUniversitaire()));
+            journaliser(reservation, TypeChangementReservation.AJOUT, reservation.getChambre().getIdChambre());
+            ReservationResultatDTO resultat = resultatParReservation.get(reservation);
+            resultat.setIdReservation(reservation.getIdReservation());
+            resultat.setSucces(true);
+        }
+        entityManager.flush();
+        return resultats;
     }
 
     @Override
     public Reservation annulerReservation(long cinEtudiant) {
-        // 1. Find the student by CIN
-        Etudiant etudiant = etudiantRepository.findByCin(cinEtudiant)
+        // Two cancellations touching the same reservation: the one that loses the version check runs again
+        return reessaiOptimiste.executer(() -> annuler(cinEtudiant));
+    }
+
+    private Reservation annuler(long cinEtudiant) {
+        // 1. Find the student id by CIN (served from cache)
+        Long idEtudiant = etudiantCache.getIdEtudiant(cinEtudiant)
                 .orElseThrow(() -> new RuntimeException("Etudiant not found with CIN: " + cinEtudiant));
 
-        // 2. Find the student's valid reservation
-        Reservation reservation = findValidReservationByEtudiant(etudiant);
-        if (reservation == null) {
-            throw new RuntimeException("No valid reservation found for student with CIN: " + cinEtudiant);
-        }
+        // 2. Find the student's current valid reservation
+        Reservation reservation = reservationRepository
+                .findFirstByEtudiantsIdEtudiantAndEstValideTrueOrderByAnneeUniversitaireDesc(idEtudiant)
+                .orElseThrow(() -> new RuntimeException("No valid reservation found for student with CIN: " + cinEtudiant));
 
         // 3. Get the chambre associated with the reservation
         Chambre chambre = reservation.getChambre();
 
         // 4. Remove student from reservation (ManyToMany)
-        reservation.getEtudiants().remove(etudiant);
+        reservation.getEtudiants().removeIf(etudiant -> etudiant.getIdEtudiant().equals(idEtudiant));
 
         // 5. Check if reservation becomes empty after removal
         if (reservation.getEtudiants().isEmpty()) {
@@ -120,32 +343,89 @@ public class ReservationServiceImpl implements IReservationService {
 
             // If chambre exists, we've effectively freed up capacity
             if (chambre != null) {
-                // Capacity is automatically updated since we're removing a reservation
-                // The chambre's capacity is determined by its type, not stored as a field
-                System.out.println("Chambre " + chambre.getNumeroChambre() + " capacity updated - reservation removed");
+                // Give the place back in the occupancy table, and in the in-memory index after commit
+                occupationChambreService.liberer(chambre.getIdChambre(), AnneeUniversitaire.anneeDebut(reservation.getAnneeUniversitaire()));
+                occupationChambreIndex.decrementer(chambre.getIdChambre(), reservation.getAnneeUniversitaire());
+                // The waiting list of the chambre gets the place once this transaction commits
+                eventPublisher.publishEvent(new ReservationAnnuleeEvent(chambre.getIdChambre(), reservation.getAnneeUniversitaire()));
+                log.debug("Chambre {} capacity updated - reservation removed", chambre.getNumeroChambre());
             }
         }
-        // 6. Save the updated reservation
-        return reservationRepository.save(reservation);
+        // 6. Save the updated reservation, with its change feed entry: a student leaving a shared reservation is a modification
+        Reservation savedReservation = reservationRepository.save(reservation);
+        journaliser(savedReservation, savedReservation.isEstValide() ? TypeChangementReservation.MODIFICATION
+                : TypeChangementReservation.ANNULATION, chambre == null ? null : chambre.getIdChambre());
+        return savedReservation;
     }
 
-    private Reservation findValidReservationByEtudiant(Etudiant etudiant) {
-        // Get all reservations for this student and find a valid one
-        List<Reservation> reservations = reservationRepository.findByEtudiantsAndEstValideTrue(etudiant);
-        if (reservations.isEmpty()) {
-            return null;
+    @Override
+    @Transactional(readOnly = true)
+    public ChangementsReservationDTO retrieveChangements(Long depuis, Integer taille) {
+        long curseur = Pagination.apres(depuis);
+        // Sequences are given in commit order (NumerotationChangements): every visible change is final, none can
+        // appear later below the cursor
+        Slice<ReservationChangementDTO> page = reservationChangementRepository.findVuesApres(curseur, Pagination.limite(taille));
+        List<ReservationChangementDTO> changements = page.getContent();
+        if (!changements.isEmpty()) {
+            curseur = changements.get(changements.size() - 1).getSequence();
         }
-        // Return the first valid reservation (you might want more complex logic here)
-        return reservations.get(0);
+        return new ChangementsReservationDTO(changements, curseur, page.hasNext());
+    }
+
+    // Outbox row in the transaction of the change: it commits, or rolls back, with it, and is numbered just before
+    private void journaliser(Reservation reservation, TypeChangementReservation type, Long idChambre) {
+        ReservationChangement changement = reservationChangementRepository.save(new ReservationChangement(null, null,
+                reservation.getIdReservation(), type, idChambre, reservation.getAnneeUniversitaire(), reservation.isEstValide(),
+                LocalDateTime.now()));
+        numerotationChangements.numeroter(changement.getIdChangement());
     }
 
 
     @Override
-    public List<Reservation> getReservationParAnneeUniversitaireEtNomUniversite(
+    public List<ReservationVueDTO> getReservationParAnneeUniversitaireEtNomUniversite(
             LocalDate anneeUniversite, String nomUniversite) {
 
-        return reservationRepository.findByChambreBlocFoyerUniversiteNomUniversiteAndAnneeUniversitaire(
-                nomUniversite, anneeUniversite);
+        // Closed years may already be in the archive, partly or entirely
+        List<ReservationVueDTO> reservations = new ArrayList<>(reservationRepository.findVuesParNomUniversiteEtAnneeUniversitaire(
+                nomUniversite, anneeUniversite));
+        reservations.addAll(reservationArchiveRepository.findVuesParNomUniversiteEtAnneeUniversitaire(nomUniversite, anneeUniversite));
+        return reservations;
+    }
+
+    @Override
+    public List<StatistiqueOccupationDTO> getStatistiquesOccupation(int anneeDebut, int anneeFin, String nomUniversite) {
+        if (anneeFin < anneeDebut) {
+            throw new RuntimeException("Invalid academic year range: " + anneeDebut + " - " + anneeFin);
+        }
+        // 1. Valid reservations grouped in the database by year, bloc and type, live and archived
+        Map<CleStatistique, Long> reservationsParCle = new HashMap<>();
+        LocalDate debut = AnneeUniversitaire.debut(anneeDebut);
+        LocalDate fin = AnneeUniversitaire.fin(anneeFin);
+        List<Object[]> lignes = new ArrayList<>(reservationRepository.countValidesParAnneeBlocEtType(debut, fin, nomUniversite));
+        lignes.addAll(reservationArchiveRepository.countValidesParAnneeBlocEtType(debut, fin, nomUniversite));
+        for (Object[] ligne : lignes) {
+            reservationsParCle.merge(new CleStatistique(((Number) ligne[0]).intValue(), (Long) ligne[1], (TypeChambre) ligne[2]),
+                    (Long) ligne[3], Long::sum);
+        }
+        // 2. Chambres grouped by bloc and type (current topology), places derived from the type capacity
+        List<Object[]> chambres = chambreRepository.countParBlocEtType(nomUniversite);
+        // 3. One row per year and group, groups without reservations included
+        List<StatistiqueOccupationDTO> statistiques = new ArrayList<>();
+        for (int annee = anneeDebut; annee <= anneeFin; annee++) {
+            for (Object[] ligne : chambres) {
+                TypeChambre typeC = (TypeChambre) ligne[6];
+                long nombreChambres = (Long) ligne[7];
+                long places = nombreChambres * OccupationChambreService.capacite(typeC);
+                long reservations = reservationsParCle.getOrDefault(new CleStatistique(annee, (Long) ligne[4], typeC), 0L);
+                statistiques.add(new StatistiqueOccupationDTO(annee, (Long) ligne[0], (String) ligne[1], (Long) ligne[2],
+                        (String) ligne[3], (Long) ligne[4], (String) ligne[5], typeC, nombreChambres, places, reservations,
+                        places == 0 ? 0 : (double) reservations / places));
+            }
+        }
+        return statistiques;
+    }
+
+    private record CleStatistique(int annee, Long idBloc, TypeChambre typeC) {
     }
 
 
@@ -0,0 +1,53 @@
+package com.esprit.gestionfoyer.services;
+
+import com.esprit.gestionfoyer.entites.Bloc;
+import com.esprit.gestionfoyer.entites.Foyer;
+import com.esprit.gestionfoyer.repositories.UniversiteRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Read-through cache for the Universite -> Foyer -> Bloc -> Chambre hierarchy.
+ * Entities and their collections live in the Hibernate second-level cache; this component holds
+ * the universite name -> id lookup and evicts the collection regions Hibernate cannot keep in sync
+ * on its own (the inverse side of Chambre.bloc and Bloc.foyer).
+ */
+@Component
+public class TopologieCache {
+
+    public static final String UNIVERSITE_ID_PAR_NOM = "universiteIdParNom";
+
+    @Autowired
+    private UniversiteRepository universiteRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Cacheable(cacheNames = UNIVERSITE_ID_PAR_NOM, unless = "#result == null")
+    public Optional<Long> getIdUniversite(String nomUniversite) {
+        return universiteRepository.findIdByNomUniversite(nomUniversite);
+    }
+
+    @CacheEvict(cacheNames = UNIVERSITE_ID_PAR_NOM, allEntries = true)
+    public void evictNomsUniversite() {
+        // eviction handled by the annotation
+    }
+
+    public void evictChambresDesBlocs() {
+        evictCollection(Bloc.class.getName() + ".chambres");
+    }
+
+    public void evictBlocsDesFoyers() {
+        evictCollection(Foyer.class.getName() + ".blocs");
+    }
+
+    private void evictCollection(String role) {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictCollectionData(role);
+    }
+}
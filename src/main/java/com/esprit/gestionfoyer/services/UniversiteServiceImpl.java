@@ -1,5 +1,7 @@
 package com.esprit.gestionfoyer.services;
 
+import com.esprit.gestionfoyer.dto.PageCurseurDTO;
+import com.esprit.gestionfoyer.dto.UniversiteVueDTO;
 import com.esprit.gestionfoyer.entites.Foyer;
 import com.esprit.gestionfoyer.entites.Universite;
 import com.esprit.gestionfoyer.repositories.FoyerRepository;
@@ -15,23 +17,43 @@ public class UniversiteServiceImpl implements IUniversiteService {
     private UniversiteRepository universiteRepository;
     @Autowired
     private FoyerRepository foyerRepository;
+    @Autowired
+    private TopologieCache topologieCache;
+
+    @Autowired
+    private ReessaiOptimiste reessaiOptimiste;
+
+    @Override
+    public List<UniversiteVueDTO> retrieveAllUniversities() {
+        return universiteRepository.findAllVues();
+    }
 
     @Override
-    public List<Universite> retrieveAllUniversities() {
-        return universiteRepository.findAll();
+    public PageCurseurDTO<UniversiteVueDTO, Long> retrieveUniversitesPage(Long apres, Integer taille) {
+        return PageCurseurDTO.of(universiteRepository.findPageVues(Pagination.apres(apres), Pagination.limite(taille)),
+                UniversiteVueDTO::getIdUniversite);
     }
 
     @Override
     public Universite addUniversite(Universite u) {
-        return universiteRepository.save(u);
+        Universite savedUniversite = universiteRepository.save(u);
+        topologieCache.evictNomsUniversite();
+        return savedUniversite;
     }
 
     @Override
     public Universite updateUniversite(Universite u) {
-        if (universiteRepository.existsById(u.getIdUniversite())) {
-            return universiteRepository.save(u);
-        }
-        throw new RuntimeException("Universite not found with id: " + u.getIdUniversite());
+        // 1. The version the client read the universite at
+        long version = ReessaiOptimiste.versionExigee(u.getVersion(), "Universite", u.getIdUniversite());
+        reessaiOptimiste.executer(() -> {
+            // 2. Conditional update of the scalar fields
+            int lignes = universiteRepository.updateChamps(u.getIdUniversite(), version, u.getNomUniversite(), u.getAdresse());
+            ReessaiOptimiste.verifier(lignes, () -> universiteRepository.existsById(u.getIdUniversite()), "Universite",
+                    u.getIdUniversite(), version);
+        });
+        // 3. The name may have changed: the name lookup is evicted once committed
+        topologieCache.evictNomsUniversite();
+        return retrieveUniversite(u.getIdUniversite());
     }
 
     @Override
@@ -40,12 +62,18 @@ public class UniversiteServiceImpl implements IUniversiteService {
                 .orElseThrow(() -> new RuntimeException("Universite not found with id: " + idUniversite));
     }
 
+    @Override
+    public UniversiteVueDTO retrieveUniversiteVue(long idUniversite) {
+        return universiteRepository.findVueById(idUniversite)
+                .orElseThrow(() -> new RuntimeException("Universite not found with id: " + idUniversite));
+    }
+
     @Override
     public Universite affecterFoyerAUniversite(long idFoyer, String nomUniversite) {
         // Find the foyer by ID
         Foyer foyer = foyerRepository.findById(idFoyer).orElseThrow(() -> new RuntimeException("Foyer not found with id: " + idFoyer));
         // Find the university by name
-        Universite universite = universiteRepository.findByNomUniversite(nomUniversite).orElseThrow(() -> new RuntimeException("Universite not found with name: " + nomUniversite));
+        Universite universite = topologieCache.getIdUniversite(nomUniversite).flatMap(universiteRepository::findById).orElseThrow(() -> new RuntimeException("Universite not found with name: " + nomUniversite));
         // Since Universite has the foreign key, set the foyer on the universite
         universite.setFoyer(foyer);
         // Save the universite
@@ -0,0 +1,123 @@
+package com.esprit.gestionfoyer.services;
+
+import com.esprit.gestionfoyer.config.SqlStatementCounter;
+import com.esprit.gestionfoyer.dto.ProvisionnementBlocDTO;
+import com.esprit.gestionfoyer.dto.ProvisionnementFoyerDTO;
+import com.esprit.gestionfoyer.dto.ProvisionnementRapportDTO;
+import com.esprit.gestionfoyer.entites.Etudiant;
+import com.esprit.gestionfoyer.entites.TypeChambre;
+import com.esprit.gestionfoyer.entites.Universite;
+import com.esprit.gestionfoyer.repositories.ChambreRepository;
+import com.esprit.gestionfoyer.repositories.EtudiantRepository;
+import com.esprit.gestionfoyer.repositories.UniversiteRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The chambre reads rewritten as set-based queries must run the same number of statements
+ * whatever the size of the university they read.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ChambreServiceImplTest {
+
+    @Autowired
+    private IChambreService chambreService;
+
+    @Autowired
+    private IFoyerService foyerService;
+
+    @Autowired
+    private IReservationService reservationService;
+
+    @Autowired
+    private UniversiteRepository universiteRepository;
+
+    @Autowired
+    private EtudiantRepository etudiantRepository;
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Test
+    void nombreDeRequetesIndependantDuVolume() {
+        // 1. Two universities of the same shape, the second one 40 times larger, both partly reserved
+        Campus petite = campus("Requetes-Petite", 1, 6, 2);
+        Campus grande = campus("Requetes-Grande", 8, 30, 60);
+
+        // 2. Each read runs as many statements on both
+        assertRequetesConstantes(petite, grande, campus -> chambreService.getChambresParNomUniversite(campus.nom()));
+        assertRequetesConstantes(petite, grande, campus -> chambreService.getChambresParBlocEtType(campus.idBloc(), TypeChambre.DOUBLE));
+        assertRequetesConstantes(petite, grande,
+                campus -> chambreService.getChambresNonReserveParNomUniversiteEtTypeChambre(campus.nom(), TypeChambre.DOUBLE));
+        assertRequetesConstantes(petite, grande, campus -> chambreService.getChambresNonReservePourToutesUniversites());
+    }
+
+    private void assertRequetesConstantes(Campus petite, Campus grande, Function<Campus, ?> lecture) {
+        // Warm-up: the name -> id lookups and second-level cache entries are loaded once for both
+        lecture.apply(petite);
+        lecture.apply(grande);
+        int surPetite = requetes(() -> lecture.apply(petite));
+        int surGrande = requetes(() -> lecture.apply(grande));
+        assertEquals(surPetite, surGrande, "statements on " + petite.chambres() + " vs " + grande.chambres() + " chambres");
+        assertTrue(surGrande <= 2, "at most two statements per read, got " + surGrande);
+    }
+
+    private int requetes(Runnable lecture) {
+        sqlStatementCounter.demarrer();
+        lecture.run();
+        return sqlStatementCounter.terminer().values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    // A university with one foyer of blocs of DOUBLE and SIMPLE chambres, and a few reservations
+    private Campus campus(String nom, int blocs, int chambresParBloc, int reservations) {
+        Universite universite = new Universite();
+        universite.setNomUniversite(nom);
+        universite.setAdresse("Tunis");
+        universite = universiteRepository.save(universite);
+
+        ProvisionnementFoyerDTO demande = new ProvisionnementFoyerDTO();
+        demande.setIdUniversite(universite.getIdUniversite());
+        demande.setNomFoyer("Foyer-" + nom);
+        for (int b = 0; b < blocs; b++) {
+            ProvisionnementBlocDTO bloc = new ProvisionnementBlocDTO();
+            bloc.setNomBloc(nom + "-" + b);
+            bloc.getChambres().put(TypeChambre.DOUBLE, LongStream.range(0, chambresParBloc / 2).boxed().toList());
+            bloc.getChambres().put(TypeChambre.SIMPLE, LongStream.range(chambresParBloc / 2, chambresParBloc).boxed().toList());
+            demande.getBlocs().add(bloc);
+        }
+        ProvisionnementRapportDTO rapport = foyerService.provisionnerFoyer(demande);
+
+        List<Long> idChambres = chambreRepository.findIdsParFoyer(rapport.getIdFoyer());
+        List<Etudiant> etudiants = new ArrayList<>();
+        for (int i = 0; i < reservations; i++) {
+            Etudiant etudiant = new Etudiant();
+            etudiant.setNomEt("Nom" + i);
+            etudiant.setPrenomEt("Prenom" + i);
+            etudiant.setCin((long) nom.hashCode() * 1000 + i);
+            etudiants.add(etudiant);
+        }
+        etudiantRepository.saveAll(etudiants);
+        for (int i = 0; i < reservations; i++) {
+            reservationService.ajouterReservation(idChambres.get(i), etudiants.get(i).getCin());
+        }
+        return new Campus(nom, chambreRepository.findIdsParFoyer(rapport.getIdFoyer()).size(),
+                idChambres.isEmpty() ? 0 : chambreRepository.findById(idChambres.get(0)).orElseThrow().getBloc().getIdBloc());
+    }
+
+    private record Campus(String nom, int chambres, long idBloc) {
+    }
+}
@@ -0,0 +1,86 @@
+package com.esprit.gestionfoyer.services;
+
+import com.esprit.gestionfoyer.dto.ImportLotDTO;
+import com.esprit.gestionfoyer.dto.ImportRapportDTO;
+import com.esprit.gestionfoyer.entites.Etudiant;
+import com.esprit.gestionfoyer.repositories.EtudiantRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * A chunk that fails is rolled back on its own and reported, the import goes on, and the CINs of
+ * the rolled back chunk are not taken for duplicates when they come again.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class EtudiantServiceImplTest {
+
+    @Autowired
+    private IEtudiantService etudiantService;
+
+    @Autowired
+    private EtudiantRepository etudiantRepository;
+
+    @Test
+    void lotEnEchecRapporteSansMarquerSesCins() {
+        // 1. Import in chunks of two, one of which fails
+        Object cible = AopTestUtils.getUltimateTargetObject(etudiantService);
+        Object tailleLot = ReflectionTestUtils.getField(cible, "tailleLot");
+        ReflectionTestUtils.setField(cible, "tailleLot", 2);
+        long premier = 95_000_000L;
+        ImportRapportDTO rapport;
+        try {
+            rapport = importer(premier);
+        } finally {
+            ReflectionTestUtils.setField(cible, "tailleLot", tailleLot);
+        }
+
+        // 2. The failed chunk is reported, the next ones are imported
+        assertEquals(3, rapport.getLots().size());
+        ImportLotDTO echec = rapport.getLots().get(0);
+        assertEquals(2, echec.getEchecs());
+        assertEquals(0, echec.getInseres());
+        assertNotNull(echec.getErreur());
+        ImportLotDTO reprise = rapport.getLots().get(1);
+        assertEquals(2, reprise.getInseres());
+        assertEquals(0, reprise.getDoublons());
+        assertNull(reprise.getErreur());
+        ImportLotDTO rejets = rapport.getLots().get(2);
+        assertEquals(1, rejets.getDoublons());
+        assertEquals(1, rejets.getInvalides());
+        assertEquals(6, rapport.getTotalLus());
+        assertEquals(2, rapport.getTotalInseres());
+        assertEquals(2, rapport.getTotalRejetes());
+        assertEquals(2, rapport.getTotalEchecs());
+        assertEquals(List.of(premier, premier + 2),
+                etudiantRepository.findCinsExistants(List.of(premier, premier + 1, premier + 2)).stream().sorted().toList());
+    }
+
+    // Chunks of two: the first one fails on a name too long for its column, the second one sends its valid
+    // line again, the third one only has a real duplicate and an unreadable line
+    private ImportRapportDTO importer(long premier) {
+        return etudiantService.importerEtudiants(Arrays.asList(
+                etudiant(premier, "Nom"), etudiant(premier + 1, "N".repeat(300)),
+                etudiant(premier, "Nom"), etudiant(premier + 2, "Nom"),
+                etudiant(premier + 2, "Nom"), null).iterator());
+    }
+
+    private Etudiant etudiant(long cin, String nom) {
+        Etudiant etudiant = new Etudiant();
+        etudiant.setNomEt(nom);
+        etudiant.setPrenomEt("Prenom");
+        etudiant.setCin(cin);
+        return etudiant;
+    }
+}
@@ -0,0 +1,148 @@
+package com.esprit.gestionfoyer.services;
+
+import com.esprit.gestionfoyer.dto.AjouterReservationDTO;
+import com.esprit.gestionfoyer.dto.ProvisionnementBlocDTO;
+import com.esprit.gestionfoyer.dto.ProvisionnementFoyerDTO;
+import com.esprit.gestionfoyer.dto.ProvisionnementRapportDTO;
+import com.esprit.gestionfoyer.entites.AttenteReservation;
+import com.esprit.gestionfoyer.entites.Etudiant;
+import com.esprit.gestionfoyer.entites.TypeChambre;
+import com.esprit.gestionfoyer.entites.Universite;
+import com.esprit.gestionfoyer.repositories.AttenteReservationRepository;
+import com.esprit.gestionfoyer.repositories.ChambreRepository;
+import com.esprit.gestionfoyer.repositories.EtudiantRepository;
+import com.esprit.gestionfoyer.repositories.ReservationRepository;
+import com.esprit.gestionfoyer.repositories.UniversiteRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * The promotion admits waiting students while it holds the occupancy rows of the freed places: it must
+ * get by with its own connection, even when the id range runs out and the rest of the pool is busy.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PromotionListeAttenteTest {
+
+    private static final int PLACES = 3;
+
+    @Autowired
+    private PromotionListeAttente promotionListeAttente;
+
+    @Autowired
+    private IListeAttenteService listeAttenteService;
+
+    @Autowired
+    private IReservationService reservationService;
+
+    @Autowired
+    private IFoyerService foyerService;
+
+    @Autowired
+    private UniversiteRepository universiteRepository;
+
+    @Autowired
+    private EtudiantRepository etudiantRepository;
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private AttenteReservationRepository attenteReservationRepository;
+
+    @Autowired
+    private ReservationIdGenerator reservationIdGenerator;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void promotionAvecPlageEpuiseeEtPoolOccupe() throws Exception {
+        String nomUniversite = "Promotion";
+        List<Long> idChambres = chambres(nomUniversite, TypeChambre.SIMPLE, PLACES);
+        List<Long> loges = etudiants(94_000_000L, PLACES);
+        List<Long> enAttente = etudiants(94_100_000L, PLACES);
+
+        // 1. Every chambre is taken, the other students wait for one
+        List<AjouterReservationDTO> demandes = new ArrayList<>();
+        for (int i = 0; i < PLACES; i++) {
+            AjouterReservationDTO demande = new AjouterReservationDTO();
+            demande.setIdChambre(idChambres.get(i));
+            demande.setCinEtudiant(loges.get(i));
+            demandes.add(demande);
+        }
+        reservationService.ajouterReservations(demandes);
+        List<Long> idAttentes = enAttente.stream()
+                .map(cin -> listeAttenteService.inscrire(cin, nomUniversite, TypeChambre.SIMPLE).getIdAttente())
+                .toList();
+
+        // 2. The housed students cancel: their places are queued for the promotion
+        loges.forEach(reservationService::annulerReservation);
+
+        // 3. Promote with no id left in the current range and a single free connection in the pool
+        ReflectionTestUtils.setField(reservationIdGenerator, "limite", 0L);
+        List<Connection> tenues = new ArrayList<>();
+        try {
+            for (int i = 1; i < ((HikariDataSource) dataSource).getMaximumPoolSize(); i++) {
+                tenues.add(dataSource.getConnection());
+            }
+            promotionListeAttente.promouvoir();
+        } finally {
+            for (Connection connexion : tenues) {
+                connexion.close();
+            }
+        }
+
+        // 4. Every waiting student got a place
+        for (Long idAttente : idAttentes) {
+            AttenteReservation attente = attenteReservationRepository.findById(idAttente).orElseThrow();
+            assertNotNull(attente.getIdReservation(), "entry " + idAttente + " was not promoted");
+        }
+        assertEquals(PLACES, reservationRepository.findCinsAvecReservationValide(enAttente).size());
+    }
+
+    // Chambres of one type in the foyer of a new university
+    private List<Long> chambres(String nom, TypeChambre typeC, int nombre) {
+        Universite universite = new Universite();
+        universite.setNomUniversite(nom);
+        universite.setAdresse("Tunis");
+        universite = universiteRepository.save(universite);
+        ProvisionnementBlocDTO bloc = new ProvisionnementBlocDTO();
+        bloc.setNomBloc(nom);
+        bloc.getChambres().put(typeC, LongStream.rangeClosed(1, nombre).boxed().toList());
+        ProvisionnementFoyerDTO demande = new ProvisionnementFoyerDTO();
+        demande.setIdUniversite(universite.getIdUniversite());
+        demande.setNomFoyer("Foyer-" + nom);
+        demande.getBlocs().add(bloc);
+        ProvisionnementRapportDTO rapport = foyerService.provisionnerFoyer(demande);
+        return chambreRepository.findIdsParFoyer(rapport.getIdFoyer());
+    }
+
+    private List<Long> etudiants(long premierCin, int nombre) {
+        List<Etudiant> etudiants = new ArrayList<>();
+        for (int i = 0; i < nombre; i++) {
+            Etudiant etudiant = new Etudiant();
+            etudiant.setNomEt("Nom" + i);
+            etudiant.setPrenomEt("Prenom" + i);
+            etudiant.setCin(premierCin + i);
+            etudiants.add(etudiant);
+        }
+        return etudiantRepository.saveAll(etudiants).stream().map(Etudiant::getCin).toList();
+    }
+}
@@ -0,0 +1,263 @@
+package com.esprit.gestionfoyer.services;
+
+import com.esprit.gestionfoyer.dto.AjouterReservationDTO;
+import com.esprit.gestionfoyer.dto.ChangementsReservationDTO;
+import com.esprit.gestionfoyer.dto.ProvisionnementBlocDTO;
+import com.esprit.gestionfoyer.dto.ProvisionnementFoyerDTO;
+import com.esprit.gestionfoyer.dto.ProvisionnementRapportDTO;
+import com.esprit.gestionfoyer.dto.ReservationChangementDTO;
+import com.esprit.gestionfoyer.dto.ReservationResultatDTO;
+import com.esprit.gestionfoyer.entites.Etudiant;
+import com.esprit.gestionfoyer.entites.OccupationChambre;
+import com.esprit.gestionfoyer.entites.TypeChambre;
+import com.esprit.gestionfoyer.entites.Universite;
+import com.esprit.gestionfoyer.repositories.ChambreRepository;
+import com.esprit.gestionfoyer.repositories.EtudiantRepository;
+import com.esprit.gestionfoyer.repositories.OccupationChambreRepository;
+import com.esprit.gestionfoyer.repositories.ReservationRepository;
+import com.esprit.gestionfoyer.repositories.UniversiteRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Concurrent admissions: the occupancy row serializes them, so neither the valid reservations nor
+ * the occupancy counter may ever go above the capacity of a chambre, and the change feed numbers
+ * them in commit order, without holes. A burst larger than the connection pool must not starve it,
+ * even when it has to create the occupancy rows and reserve a new id range. A student already housed is
+ * refused by the single and the batch admission alike.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ReservationServiceImplTest {
+
+    private static final int DEMANDES = 24;
+    private static final String CAPACITE_DEPASSEE = "Chambre capacity exceeded";
+    private static final String DEJA_LOGE = "already has a valid reservation";
+
+    @Autowired
+    private IReservationService reservationService;
+
+    @Autowired
+    private IFoyerService foyerService;
+
+    @Autowired
+    private UniversiteRepository universiteRepository;
+
+    @Autowired
+    private EtudiantRepository etudiantRepository;
+
+    @Autowired
+    private ChambreRepository chambreRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private OccupationChambreRepository occupationChambreRepository;
+
+    @Autowired
+    private OccupationChambreService occupationChambreService;
+
+    @Autowired
+    private ReservationIdGenerator reservationIdGenerator;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void admissionsConcurrentesNeDepassentPasLaCapacite() throws Exception {
+        long idChambre = chambres("Concurrence", TypeChambre.TRIPLE, 1).get(0);
+        List<Long> cins = etudiants(90_000_000L, DEMANDES);
+        int annee = AnneeUniversitaire.courante();
+
+        // 1. Every request goes to the same chambre
+        int admises = admettre(cins.stream().map(cin -> idChambre).toList(), cins);
+
+        // 2. Exactly the capacity was admitted, and the database agrees
+        int capacite = TypeChambre.TRIPLE.getCapacite();
+        int valides = reservationRepository.findByChambreIdChambreAndEstValideTrueAndAnneeUniversitaireBetween(idChambre,
+                AnneeUniversitaire.debut(annee), AnneeUniversitaire.fin(annee)).size();
+        OccupationChambre occupation = occupationChambreRepository.findByAnneeAndOccupeGreaterThan(annee, 0).stream()
+                .filter(ligne -> ligne.getIdChambre() == idChambre)
+                .findFirst()
+                .orElseThrow();
+        assertTrue(valides <= capacite, valides + " valid reservations for a capacity of " + capacite);
+        assertTrue(occupation.getOccupe() <= capacite, "occupe " + occupation.getOccupe() + " for a capacity of " + capacite);
+        assertEquals(capacite, admises);
+        assertEquals(admises, valides);
+        assertEquals(admises, occupation.getOccupe());
+    }
+
+    @Test
+    void changementsConcurrentsNumerotesSansTrou() throws Exception {
+        List<Long> idChambres = chambres("Flux", TypeChambre.DOUBLE, DEMANDES / 2);
+        List<Long> cins = etudiants(91_000_000L, DEMANDES);
+        long avant = curseur(0L, new ArrayList<>());
+
+        // 1. Two requests per chambre, so every one is admitted
+        int admises = admettre(cins.stream().map(cin -> idChambres.get((int) (cin % idChambres.size()))).toList(), cins);
+
+        // 2. One change per admission, numbered right after the cursor with no hole
+        List<ReservationChangementDTO> changements = new ArrayList<>();
+        curseur(avant, changements);
+        assertEquals(DEMANDES, admises);
+        assertEquals(admises, changements.size());
+        for (int i = 0; i < changements.size(); i++) {
+            assertEquals(avant + 1 + i, changements.get(i).getSequence());
+        }
+    }
+
+    @Test
+    void rafaleAFroidPlusGrandeQueLePool() throws Exception {
+        int pool = ((HikariDataSource) dataSource).getMaximumPoolSize();
+        int demandes = 2 * pool + 4;
+        List<Long> idChambres = chambres("Rafale", TypeChambre.DOUBLE, demandes / 2);
+        List<Long> cins = etudiants(92_000_000L, demandes);
+        int annee = AnneeUniversitaire.courante();
+
+        // 1. Nothing prepared: no occupancy row for the chambres, as on the first day of a year, and no
+        // id left in the current range
+        idChambres.forEach(occupationChambreService::supprimer);
+        ReflectionTestUtils.setField(reservationIdGenerator, "limite", 0L);
+
+        // 2. Two requests per chambre, more requests than connections: every one is admitted
+        int admises = admettre(cins.stream().map(cin -> idChambres.get((int) (cin % idChambres.size()))).toList(), cins);
+        assertEquals(demandes, admises);
+        for (long idChambre : idChambres) {
+            assertEquals(TypeChambre.DOUBLE.getCapacite(), reservationRepository.findByChambreIdChambreAndEstValideTrueAndAnneeUniversitaireBetween(
+                    idChambre, AnneeUniversitaire.debut(annee), AnneeUniversitaire.fin(annee)).size());
+        }
+    }
+
+    @Test
+    void etudiantDejaLogeRefuseParLesDeuxChemins() throws Exception {
+        List<Long> idChambres = chambres("Loges", TypeChambre.DOUBLE, 8);
+        List<Long> cins = etudiants(93_000_000L, 2);
+
+        // 1. Housed through the single path, refused by both paths afterwards
+        reservationService.ajouterReservation(idChambres.get(0), cins.get(0));
+        RuntimeException refus = assertThrows(RuntimeException.class,
+                () -> reservationService.ajouterReservation(idChambres.get(1), cins.get(0)));
+        assertTrue(refus.getMessage().contains(DEJA_LOGE), refus.getMessage());
+        ReservationResultatDTO resultat = reservationService.ajouterReservations(List.of(demande(idChambres.get(1), cins.get(0)))).get(0);
+        assertFalse(resultat.isSucces());
+        assertTrue(resultat.getMessage().contains(DEJA_LOGE), resultat.getMessage());
+
+        // 2. Housed through the batch, refused by the single path afterwards
+        assertTrue(reservationService.ajouterReservations(List.of(demande(idChambres.get(2), cins.get(1)))).get(0).isSucces());
+        refus = assertThrows(RuntimeException.class, () -> reservationService.ajouterReservation(idChambres.get(3), cins.get(1)));
+        assertTrue(refus.getMessage().contains(DEJA_LOGE), refus.getMessage());
+
+        // 3. The same student sent at once to several free chambres is housed once
+        long cin = etudiants(93_100_000L, 1).get(0);
+        List<Long> libres = idChambres.subList(4, idChambres.size());
+        assertEquals(1, admettre(libres, libres.stream().map(idChambre -> cin).toList(), DEJA_LOGE));
+        assertEquals(1, reservationRepository.findCinsAvecReservationValide(List.of(cin)).size());
+    }
+
+    // Fires the admissions (idChambres[i], cins[i]) at once and returns how many succeeded. A full chambre
+    // is the only expected refusal: any other failure fails the test
+    private int admettre(List<Long> idChambres, List<Long> cins) throws Exception {
+        return admettre(idChambres, cins, CAPACITE_DEPASSEE);
+    }
+
+    private int admettre(List<Long> idChambres, List<Long> cins, String refusAttendu) throws Exception {
+        // Every request waits on the same latch, then they all start together
+        ExecutorService executeur = Executors.newFixedThreadPool(cins.size());
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Future<Boolean>> resultats = new ArrayList<>();
+        for (int i = 0; i < cins.size(); i++) {
+            long idChambre = idChambres.get(i);
+            long cin = cins.get(i);
+            resultats.add(executeur.submit(() -> {
+                depart.await();
+                try {
+                    reservationService.ajouterReservation(idChambre, cin);
+                    return true;
+                } catch (RuntimeException e) {
+                    if (e.getMessage() != null && e.getMessage().contains(refusAttendu)) {
+                        return false;
+                    }
+                    throw e;
+                }
+            }));
+        }
+        depart.countDown();
+        int admises = 0;
+        try {
+            for (Future<Boolean> resultat : resultats) {
+                admises += resultat.get(60, TimeUnit.SECONDS) ? 1 : 0;
+            }
+        } finally {
+            executeur.shutdownNow();
+        }
+        return admises;
+    }
+
+    private AjouterReservationDTO demande(long idChambre, long cinEtudiant) {
+        AjouterReservationDTO demande = new AjouterReservationDTO();
+        demande.setIdChambre(idChambre);
+        demande.setCinEtudiant(cinEtudiant);
+        return demande;
+    }
+
+    // Reads the feed from the cursor to its end, and returns the last cursor
+    private long curseur(long depuis, List<ReservationChangementDTO> changements) {
+        ChangementsReservationDTO page;
+        do {
+            page = reservationService.retrieveChangements(depuis, Pagination.TAILLE_MAX);
+            changements.addAll(page.getChangements());
+            depuis = page.getCurseur();
+        } while (page.isSuite());
+        return depuis;
+    }
+
+    // Chambres of one type in a new university
+    private List<Long> chambres(String nom, TypeChambre typeC, int nombre) {
+        Universite universite = new Universite();
+        universite.setNomUniversite(nom);
+        universite.setAdresse("Tunis");
+        universite = universiteRepository.save(universite);
+        ProvisionnementBlocDTO bloc = new ProvisionnementBlocDTO();
+        bloc.setNomBloc(nom);
+        bloc.getChambres().put(typeC, LongStream.rangeClosed(1, nombre).boxed().toList());
+        ProvisionnementFoyerDTO demande = new ProvisionnementFoyerDTO();
+        demande.setIdUniversite(universite.getIdUniversite());
+        demande.setNomFoyer("Foyer-" + nom);
+        demande.getBlocs().add(bloc);
+        ProvisionnementRapportDTO rapport = foyerService.provisionnerFoyer(demande);
+        return chambreRepository.findIdsParFoyer(rapport.getIdFoyer());
+    }
+
+    private List<Long> etudiants(long premierCin, int nombre) {
+        List<Etudiant> etudiants = new ArrayList<>();
+        for (int i = 0; i < nombre; i++) {
+            Etudiant etudiant = new Etudiant();
+            etudiant.setNomEt("Nom" + i);
+            etudiant.setPrenomEt("Prenom" + i);
+            etudiant.setCin(premierCin + i);
+            etudiants.add(etudiant);
+        }
+        return etudiantRepository.saveAll(etudiants).stream().map(Etudiant::getCin).toList();
+    }
+}